@@ -0,0 +1,103 @@
+package be.ahm282.Athar.client;
+
+import be.ahm282.Athar.config.CarrierProperties;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket whose refill rate follows the upstream's feedback (AIMD): every fast success adds a small step,
+ * every throttled, failed or slow call multiplies the rate down. A {@code Retry-After} from the upstream pauses
+ * the bucket entirely until that moment.
+ */
+public class AdaptiveRateLimiter {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final CarrierProperties.RateLimit config;
+    private final LongSupplier nanoClock;
+
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos;
+    private long pausedUntilNanos;
+
+    public AdaptiveRateLimiter(CarrierProperties.RateLimit config) {
+        this(config, System::nanoTime);
+    }
+
+    AdaptiveRateLimiter(CarrierProperties.RateLimit config, LongSupplier nanoClock) {
+        this.config = config;
+        this.nanoClock = nanoClock;
+        this.rate = clamp(config.getInitialRate());
+        this.tokens = config.getBurst();
+        this.lastRefillNanos = nanoClock.getAsLong();
+        this.pausedUntilNanos = lastRefillNanos;
+    }
+
+    /**
+     * Reserves a permit.
+     *
+     * @return how long the caller must wait before using the permit, or {@code null} when that would exceed the
+     * configured maximum wait, in which case nothing was reserved
+     */
+    public synchronized Duration reserve() {
+        long now = nanoClock.getAsLong();
+        refill(now);
+
+        long pauseNanos = Math.max(0, pausedUntilNanos - now);
+        long waitNanos = tokens >= 1 ? 0 : (long) ((1 - tokens) / rate * NANOS_PER_SECOND);
+        long totalWaitNanos = pauseNanos + waitNanos;
+
+        if (totalWaitNanos > config.getMaxWait().toNanos()) {
+            return null;
+        }
+
+        tokens -= 1;
+        return Duration.ofNanos(totalWaitNanos);
+    }
+
+    public synchronized void onSuccess(Duration latency) {
+        if (latency.compareTo(config.getLatencyTarget()) > 0) {
+            decrease();
+        } else {
+            rate = clamp(rate + config.getIncreaseStep());
+        }
+    }
+
+    public synchronized void onFailure() {
+        decrease();
+    }
+
+    public synchronized void onThrottled(Duration retryAfter) {
+        decrease();
+
+        if (retryAfter != null && !retryAfter.isNegative()) {
+            pausedUntilNanos = Math.max(pausedUntilNanos, nanoClock.getAsLong() + retryAfter.toNanos());
+        }
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    public synchronized double getAvailableTokens() {
+        refill(nanoClock.getAsLong());
+        return tokens;
+    }
+
+    private void decrease() {
+        rate = clamp(rate * config.getDecreaseFactor());
+    }
+
+    private void refill(long now) {
+        double elapsedSeconds = (double) (now - lastRefillNanos) / NANOS_PER_SECOND;
+        tokens = Math.min(config.getBurst(), tokens + elapsedSeconds * rate);
+        lastRefillNanos = now;
+    }
+
+    private double clamp(double value) {
+        return Math.max(config.getMinRate(), Math.min(config.getMaxRate(), value));
+    }
+
+}
@@ -1,21 +1,51 @@
 package be.ahm282.Athar.client;
 
+import be.ahm282.Athar.config.CarrierProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Function;
 
 @Service
 public class BpostClient {
 
     private final WebClient webClient;
+    private final UpstreamGuard upstreamGuard;
+    private final boolean conditionalRequests;
+    private final Cache<ValidatorKey, Validators> validators;
+
+    public BpostClient(CarrierWebClientFactory webClientFactory, UpstreamGuards upstreamGuards, CarrierProperties carrierProperties) {
+        CarrierProperties.Carrier bpost = carrierProperties.getCarrier("bpost");
 
-    public BpostClient(WebClient.Builder builder) {
-        this.webClient = builder
-                .baseUrl("https://track.bpost.cloud/track/items")
+        this.webClient = webClientFactory.create("bpost");
+        this.upstreamGuard = upstreamGuards.forCarrier("bpost");
+        this.conditionalRequests = bpost.isConditionalRequests();
+        this.validators = Caffeine.newBuilder()
+                .maximumSize(bpost.getValidatorCacheSize())
                 .build();
     }
 
     public String fetchTrackingData(String trackingNumber, String postcode) {
-        return webClient
+        return fetchTrackingDataAsync(trackingNumber, postcode).block();
+    }
+
+    /**
+     * Non-blocking variant of {@link #fetchTrackingData(String, String)}.
+     * Nothing is sent until the returned {@link Mono} is subscribed to.
+     */
+    public Mono<String> fetchTrackingDataAsync(String trackingNumber, String postcode) {
+        return upstreamGuard.guardHedged(webClient
                 .get()
                 .uri(uriBuilder ->  uriBuilder.queryParam("itemIdentifier", trackingNumber)
                                 .queryParam("postalCode", postcode)
@@ -23,8 +53,146 @@ public class BpostClient {
 
                 )
                 .retrieve()
-                .bodyToMono(String.class)
-                .block();
+                .bodyToMono(String.class));
+    }
+
+    /**
+     * Streaming variant of {@link #fetchTrackingDataAsync(String, String)}: the body is handed over as the raw
+     * network buffers, which the subscriber must release.
+     */
+    public Flux<DataBuffer> fetchTrackingDataStream(String trackingNumber, String postcode) {
+        return upstreamGuard.guard(requestTrackingDataStream(trackingNumber, postcode));
+    }
+
+    /**
+     * Conditional variant of {@link #fetchTrackingDataStream(String, String)}.
+     * <p>
+     * Sends the validators remembered for this tracking number and postcode, and completes empty when the data did not
+     * change since the previous call: either the carrier answers 304 Not Modified, or the body hashes to the same
+     * content. The postcode is part of the key because the carrier's answer depends on it. The body buffers are passed
+     * to {@code decoder}, which must release them.
+     * <p>
+     * A response without ETag or Last-Modified is buffered and hashed first, and {@code decoder} is only called when
+     * its content changed. Otherwise the body streams through {@code decoder} and is hashed on the way: a same content
+     * under validators the carrier did not honour is only recognized once decoded.
+     * Callers that fail to process a decoded body must call {@link #forgetValidators(String, String)}.
+     * <p>
+     * Like every call to the carrier, this goes through its {@link UpstreamGuard}, and fails with
+     * {@link UpstreamUnavailableException} when the circuit breaker is open or the rate limit is exhausted.
+     * When hedging is enabled for Bpost, a slow call is raced against a second identical one; only the winner's
+     * body reaches {@code decoder} to completion and updates the validators.
+     */
+    public <T> Mono<T> fetchTrackingDataIfModified(String trackingNumber, String postcode, Function<Flux<DataBuffer>, Mono<T>> decoder) {
+        if (!conditionalRequests) {
+            return upstreamGuard.guardHedged(decoder.apply(requestTrackingDataStream(trackingNumber, postcode)));
+        }
+
+        return upstreamGuard.guardHedged(Mono.defer(() -> {
+            ValidatorKey key = new ValidatorKey(trackingNumber, postcode);
+            Validators known = validators.getIfPresent(key);
+
+            return webClient
+                    .get()
+                    .uri(uriBuilder -> uriBuilder.queryParam("itemIdentifier", trackingNumber)
+                            .queryParam("postalCode", postcode)
+                            .build())
+                    .headers(headers -> {
+                        if (known != null && known.etag() != null) {
+                            headers.set(HttpHeaders.IF_NONE_MATCH, known.etag());
+                        }
+                        if (known != null && known.lastModified() != null) {
+                            headers.set(HttpHeaders.IF_MODIFIED_SINCE, known.lastModified());
+                        }
+                    })
+                    .exchangeToMono(response -> decodeIfModified(key, known, response, decoder));
+        }));
+    }
+
+    public void forgetValidators(String trackingNumber, String postcode) {
+        validators.invalidate(new ValidatorKey(trackingNumber, postcode));
+    }
+
+    /**
+     * Forgets the validators of every postcode this tracking number was looked up with, for callers that no longer
+     * know the postcode.
+     */
+    public void forgetValidators(String trackingNumber) {
+        validators.asMap().keySet().removeIf(key -> key.trackingNumber().equals(trackingNumber));
+    }
+
+    private Flux<DataBuffer> requestTrackingDataStream(String trackingNumber, String postcode) {
+        return webClient
+                .get()
+                .uri(uriBuilder -> uriBuilder.queryParam("itemIdentifier", trackingNumber)
+                        .queryParam("postalCode", postcode)
+                        .build())
+                .retrieve()
+                .bodyToFlux(DataBuffer.class);
+    }
+
+    private <T> Mono<T> decodeIfModified(ValidatorKey key, Validators known, ClientResponse response, Function<Flux<DataBuffer>, Mono<T>> decoder) {
+        if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            return response.releaseBody().then(Mono.empty());
+        }
+
+        if (response.statusCode().isError()) {
+            return response.createError();
+        }
+
+        HttpHeaders headers = response.headers().asHttpHeaders();
+        String etag = headers.getETag();
+        String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+
+        if (etag == null && lastModified == null) {
+            // Carrier without validator support: compare the payload itself, before spending anything on decoding it
+            return response.bodyToMono(byte[].class)
+                    .defaultIfEmpty(new byte[0])
+                    .flatMap(bytes -> {
+                        byte[] contentHash = sha256().digest(bytes);
+                        if (known != null && MessageDigest.isEqual(known.contentHash(), contentHash)) {
+                            return Mono.empty();
+                        }
+
+                        return decoder.apply(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(bytes)))
+                                .doOnNext(decoded -> validators.put(key, new Validators(null, null, contentHash)));
+                    });
+        }
+
+        // The body streams through the decoder; a carrier that sends validators but ignores them still answers with
+        // the same payload, which the hash recognizes once decoded
+        MessageDigest digest = sha256();
+        Flux<DataBuffer> body = response.bodyToFlux(DataBuffer.class)
+                .doOnNext(buffer -> {
+                    try (DataBuffer.ByteBufferIterator chunks = buffer.readableByteBuffers()) {
+                        chunks.forEachRemaining(digest::update);
+                    }
+                });
+
+        return decoder.apply(body)
+                .flatMap(decoded -> {
+                    byte[] contentHash = digest.digest();
+                    validators.put(key, new Validators(etag, lastModified, contentHash));
+
+                    if (known != null && MessageDigest.isEqual(known.contentHash(), contentHash)) {
+                        return Mono.empty();
+                    }
+
+                    return Mono.just(decoded);
+                });
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record ValidatorKey(String trackingNumber, String postcode) {
+    }
+
+    private record Validators(String etag, String lastModified, byte[] contentHash) {
     }
 
 }
@@ -0,0 +1,79 @@
+package be.ahm282.Athar.client;
+
+import be.ahm282.Athar.config.CarrierProperties;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds a {@link WebClient} per carrier, each with its own connection pool and transport settings
+ * taken from {@code athar.carriers.<carrier>.transport.*}.
+ */
+@Component
+public class CarrierWebClientFactory implements DisposableBean {
+
+    private final WebClient.Builder builder;
+    private final CarrierProperties carrierProperties;
+    private final List<ConnectionProvider> connectionProviders = new CopyOnWriteArrayList<>();
+
+    public CarrierWebClientFactory(WebClient.Builder builder, CarrierProperties carrierProperties) {
+        this.builder = builder;
+        this.carrierProperties = carrierProperties;
+    }
+
+    public WebClient create(String carrier) {
+        CarrierProperties.Carrier carrierConfig = carrierProperties.getCarrier(carrier);
+        HttpClient httpClient = createHttpClient(carrier, carrierConfig.getTransport());
+
+        return builder.clone()
+                .baseUrl(carrierConfig.getBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    private HttpClient createHttpClient(String carrier, CarrierProperties.Transport transport) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder(carrier)
+                .maxConnections(transport.getMaxConnections())
+                .pendingAcquireMaxCount(transport.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(transport.getPendingAcquireTimeout())
+                .maxIdleTime(transport.getMaxIdleTime())
+                .maxLifeTime(transport.getMaxLifeTime())
+                .evictInBackground(transport.getEvictionInterval())
+                .metrics(transport.isMetrics())
+                .build();
+        connectionProviders.add(connectionProvider);
+
+        long readTimeoutMillis = transport.getReadTimeout().toMillis();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) transport.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(transport.getResponseTimeout())
+                .compress(transport.isCompression())
+                // Added per request: handlers added on a connection are dropped when it goes back to the pool
+                .doOnRequest((request, connection) ->
+                        connection.addHandlerLast(new ReadTimeoutHandler(readTimeoutMillis, TimeUnit.MILLISECONDS)));
+
+        if (transport.isHttp2()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        return httpClient;
+    }
+
+    @Override
+    public void destroy() {
+        connectionProviders.forEach(ConnectionProvider::dispose);
+    }
+
+}
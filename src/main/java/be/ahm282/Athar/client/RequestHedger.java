@@ -0,0 +1,157 @@
+package be.ahm282.Athar.client;
+
+import be.ahm282.Athar.config.CarrierProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hedges calls to one carrier: when a call has not answered within the configured percentile of recent latencies,
+ * an identical second call is sent and whichever signals first wins, the other being cancelled.
+ * <p>
+ * Hedges draw from a budget that grows by {@code max-ratio} per call, so at most that fraction of calls is hedged,
+ * even when the carrier slows down as a whole. Only the first call's outcome is authoritative: a failing hedge is
+ * ignored and the first call is awaited.
+ */
+public class RequestHedger {
+
+    /** Hedges that may be saved up while the carrier is fast, and spent back to back once it stalls. */
+    private static final double MAX_BUDGET = 10;
+
+    private final CarrierProperties.Hedge config;
+    private final long[] latencies;
+    private final int recomputeInterval;
+    private final Counter calls;
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+
+    private int nextSample;
+    private int samples;
+    private int samplesSinceRecompute;
+    private double budget;
+    private volatile long delayNanos = -1;
+
+    public RequestHedger(String carrier, CarrierProperties.Hedge config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.latencies = new long[config.getWindowSize()];
+        this.recomputeInterval = Math.max(1, config.getWindowSize() / 10);
+
+        this.calls = Counter.builder("athar.upstream.hedge.calls")
+                .description("Calls eligible for hedging")
+                .tag("carrier", carrier)
+                .register(meterRegistry);
+        this.hedgesSent = Counter.builder("athar.upstream.hedge.sent")
+                .description("Hedge requests sent after the first call was slow")
+                .tag("carrier", carrier)
+                .register(meterRegistry);
+        this.hedgesWon = Counter.builder("athar.upstream.hedge.won")
+                .description("Hedge requests that answered before the first call")
+                .tag("carrier", carrier)
+                .register(meterRegistry);
+        TimeGauge.builder("athar.upstream.hedge.delay", this, TimeUnit.NANOSECONDS, hedger -> Math.max(0, hedger.delayNanos))
+                .description("Current delay before a hedge is sent, zero until enough calls were measured")
+                .tag("carrier", carrier)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hedges {@code call}, which must be cold: it is subscribed to once more for the hedge.
+     */
+    public <T> Mono<T> hedge(Mono<T> call) {
+        return Mono.defer(() -> {
+            calls.increment();
+            long delay = onCall();
+
+            long start = System.nanoTime();
+            // A cancelled first call records the time it had already taken: a lower bound that keeps stalls visible
+            Mono<T> first = call.doFinally(signal -> record(System.nanoTime() - start));
+
+            if (delay < 0) {
+                return first;
+            }
+
+            Mono<T> second = Mono.delay(Duration.ofNanos(delay))
+                    .flatMap(tick -> {
+                        if (!tryAcquireHedge()) {
+                            return Mono.never();
+                        }
+
+                        hedgesSent.increment();
+                        return call
+                                .doOnSuccess(value -> hedgesWon.increment())
+                                .onErrorResume(e -> Mono.never());
+                    });
+
+            return Mono.firstWithSignal(first, second);
+        });
+    }
+
+    public long getCalls() {
+        return (long) calls.count();
+    }
+
+    public long getHedgesSent() {
+        return (long) hedgesSent.count();
+    }
+
+    public long getHedgesWon() {
+        return (long) hedgesWon.count();
+    }
+
+    /**
+     * @return the current hedge delay, or {@code null} while too few calls were measured to hedge
+     */
+    public Duration getDelay() {
+        long delay = delayNanos;
+        return delay < 0 ? null : Duration.ofNanos(delay);
+    }
+
+    /**
+     * Credits the hedge budget for a new call.
+     *
+     * @return the delay after which to hedge it, or {@code -1} when it must not be hedged
+     */
+    synchronized long onCall() {
+        budget = Math.min(MAX_BUDGET, budget + config.getMaxRatio());
+        return budget >= 1 ? delayNanos : -1;
+    }
+
+    synchronized boolean tryAcquireHedge() {
+        if (budget < 1) {
+            return false;
+        }
+
+        budget -= 1;
+        return true;
+    }
+
+    synchronized void record(long latencyNanos) {
+        latencies[nextSample] = latencyNanos;
+        nextSample = (nextSample + 1) % latencies.length;
+        samples = Math.min(samples + 1, latencies.length);
+
+        // Sorting the window on every call would cost more than the hedge saves: refresh the percentile periodically
+        if (++samplesSinceRecompute >= recomputeInterval && samples >= config.getMinSamples()) {
+            samplesSinceRecompute = 0;
+            delayNanos = computeDelay();
+        }
+    }
+
+    private long computeDelay() {
+        long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+
+        int index = (int) Math.ceil(config.getPercentile() / 100 * sorted.length) - 1;
+        long percentile = sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+
+        long min = config.getMinDelay().toNanos();
+        long max = config.getMaxDelay().toNanos();
+        return Math.max(min, Math.min(max, percentile));
+    }
+
+}
@@ -0,0 +1,189 @@
+package be.ahm282.Athar.client;
+
+import be.ahm282.Athar.config.CarrierProperties;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Wraps calls to one carrier in its circuit breaker and adaptive rate limiter, and feeds the outcome of every call
+ * back into both. Calls that are not let through fail with {@link UpstreamUnavailableException} without reaching
+ * the carrier. Calls can additionally be hedged, each attempt being guarded on its own.
+ */
+public class UpstreamGuard {
+
+    private final String carrier;
+    private final AdaptiveRateLimiter rateLimiter;
+    private final CircuitBreaker circuitBreaker;
+    private final RequestHedger hedger;
+
+    public UpstreamGuard(String carrier, AdaptiveRateLimiter rateLimiter, CircuitBreaker circuitBreaker, RequestHedger hedger) {
+        this.carrier = carrier;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.hedger = hedger;
+    }
+
+    public <T> Mono<T> guard(Mono<T> call) {
+        Mono<T> limited = Mono.defer(() -> {
+            Duration wait = reservePermit();
+            Mono<T> timed = Mono.defer(() -> {
+                long start = System.nanoTime();
+                return call
+                        .doOnSuccess(value -> onSuccess(start))
+                        .doOnError(this::onError);
+            });
+
+            return wait.isZero() ? timed : Mono.delay(wait).then(timed);
+        });
+
+        return applyCircuitBreaker(limited);
+    }
+
+    public <T> Flux<T> guard(Flux<T> call) {
+        Flux<T> limited = Flux.defer(() -> {
+            Duration wait = reservePermit();
+            Flux<T> timed = Flux.defer(() -> {
+                long start = System.nanoTime();
+                return call
+                        .doOnComplete(() -> onSuccess(start))
+                        .doOnError(this::onError);
+            });
+
+            return wait.isZero() ? timed : Mono.delay(wait).thenMany(timed);
+        });
+
+        return applyCircuitBreaker(limited);
+    }
+
+    /**
+     * Like {@link #guard(Mono)}, but sends a second guarded attempt when hedging is enabled and the first is slow.
+     * {@code call} must be cold, as the hedge subscribes to it again.
+     */
+    public <T> Mono<T> guardHedged(Mono<T> call) {
+        Mono<T> guarded = guard(call);
+        return hedger == null ? guarded : hedger.hedge(guarded);
+    }
+
+    public String getCarrier() {
+        return carrier;
+    }
+
+    public AdaptiveRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public RequestHedger getHedger() {
+        return hedger;
+    }
+
+    private <T> Mono<T> applyCircuitBreaker(Mono<T> call) {
+        if (circuitBreaker == null) {
+            return call;
+        }
+
+        return call.transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .onErrorMap(CallNotPermittedException.class, this::unavailable);
+    }
+
+    private <T> Flux<T> applyCircuitBreaker(Flux<T> call) {
+        if (circuitBreaker == null) {
+            return call;
+        }
+
+        return call.transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .onErrorMap(CallNotPermittedException.class, this::unavailable);
+    }
+
+    private Duration reservePermit() {
+        if (rateLimiter == null) {
+            return Duration.ZERO;
+        }
+
+        Duration wait = rateLimiter.reserve();
+        if (wait == null) {
+            throw new UpstreamUnavailableException("Rate limit for " + carrier + " exceeded");
+        }
+
+        return wait;
+    }
+
+    private UpstreamUnavailableException unavailable(CallNotPermittedException e) {
+        return new UpstreamUnavailableException("Circuit breaker for " + carrier + " is open", e);
+    }
+
+    private void onSuccess(long startNanos) {
+        if (rateLimiter != null) {
+            rateLimiter.onSuccess(Duration.ofNanos(System.nanoTime() - startNanos));
+        }
+    }
+
+    private void onError(Throwable error) {
+        if (rateLimiter == null) {
+            return;
+        }
+
+        if (error instanceof WebClientResponseException responseException) {
+            if (responseException.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)) {
+                rateLimiter.onThrottled(retryAfter(responseException.getHeaders()));
+            } else if (responseException.getStatusCode().is5xxServerError()) {
+                rateLimiter.onFailure();
+            }
+        } else if (isTransportFailure(error)) {
+            rateLimiter.onFailure();
+        }
+    }
+
+    /**
+     * Whether the circuit breaker should count this error as a failure: 5xx answers, timeouts and I/O errors. Every
+     * other error is left out of its failure rate altogether (see {@link UpstreamGuards}): 4xx answers, 429 included,
+     * say something about the request or are handled by the rate limiter, and refusals by the local rate limiter or
+     * failures to process the body never reached the carrier's health.
+     */
+    static boolean isUpstreamFailure(Throwable error) {
+        if (error instanceof WebClientResponseException responseException) {
+            return responseException.getStatusCode().is5xxServerError();
+        }
+
+        return isTransportFailure(error);
+    }
+
+    private static boolean isTransportFailure(Throwable error) {
+        return error instanceof WebClientRequestException
+                || error instanceof IOException
+                || error instanceof TimeoutException
+                || error instanceof ReadTimeoutException
+                || error.getCause() instanceof ReadTimeoutException;
+    }
+
+    private static Duration retryAfter(HttpHeaders headers) {
+        String retryAfter = headers.getFirst(HttpHeaders.RETRY_AFTER);
+
+        if (retryAfter == null) {
+            return null;
+        }
+
+        try {
+            return Duration.ofSeconds(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            // HTTP-date form: not worth parsing, the multiplicative decrease already backs off
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package be.ahm282.Athar.client;
+
+import be.ahm282.Athar.config.CarrierProperties;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Creates and keeps one {@link UpstreamGuard} per carrier from {@code athar.carriers.<carrier>.rate-limit.*},
+ * {@code athar.carriers.<carrier>.circuit-breaker.*} and {@code athar.carriers.<carrier>.hedge.*}, and publishes
+ * their state as metrics.
+ */
+@Component
+public class UpstreamGuards {
+
+    private final CarrierProperties carrierProperties;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+    private final ConcurrentMap<String, UpstreamGuard> guards = new ConcurrentHashMap<>();
+
+    public UpstreamGuards(CarrierProperties carrierProperties, MeterRegistry meterRegistry) {
+        this.carrierProperties = carrierProperties;
+        this.meterRegistry = meterRegistry;
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+    }
+
+    public UpstreamGuard forCarrier(String carrier) {
+        return guards.computeIfAbsent(carrier, this::createGuard);
+    }
+
+    public Collection<UpstreamGuard> getGuards() {
+        return guards.values();
+    }
+
+    private UpstreamGuard createGuard(String carrier) {
+        CarrierProperties.Carrier carrierConfig = carrierProperties.getCarrier(carrier);
+        AdaptiveRateLimiter rateLimiter = null;
+        CircuitBreaker circuitBreaker = null;
+        RequestHedger hedger = null;
+
+        if (carrierConfig.getRateLimit().isEnabled()) {
+            rateLimiter = new AdaptiveRateLimiter(carrierConfig.getRateLimit());
+            Gauge.builder("athar.upstream.rate.limit", rateLimiter, AdaptiveRateLimiter::getRate)
+                    .description("Current permits per second granted to the carrier")
+                    .tag("carrier", carrier)
+                    .register(meterRegistry);
+        }
+
+        if (carrierConfig.getCircuitBreaker().isEnabled()) {
+            circuitBreaker = circuitBreakerRegistry.circuitBreaker(carrier, circuitBreakerConfig(carrierConfig.getCircuitBreaker()));
+        }
+
+        if (carrierConfig.getHedge().isEnabled()) {
+            hedger = new RequestHedger(carrier, carrierConfig.getHedge(), meterRegistry);
+        }
+
+        return new UpstreamGuard(carrier, rateLimiter, circuitBreaker, hedger);
+    }
+
+    static CircuitBreakerConfig circuitBreakerConfig(CarrierProperties.CircuitBreaker config) {
+        return CircuitBreakerConfig.custom()
+                .failureRateThreshold(config.getFailureRateThreshold())
+                .slowCallRateThreshold(config.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(config.getSlowCallDurationThreshold())
+                .slidingWindowSize(config.getSlidingWindowSize())
+                .minimumNumberOfCalls(config.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(config.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(config.getPermittedCallsInHalfOpenState())
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                // Only upstream failures are recorded; any other error counts neither as a failure nor as a success
+                .recordException(UpstreamGuard::isUpstreamFailure)
+                .ignoreException(error -> !UpstreamGuard.isUpstreamFailure(error))
+                .build();
+    }
+
+}
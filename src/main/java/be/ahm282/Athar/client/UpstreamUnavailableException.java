@@ -0,0 +1,16 @@
+package be.ahm282.Athar.client;
+
+/**
+ * Thrown without calling the carrier when its circuit breaker is open or its rate limit cannot grant a permit in time.
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+
+    public UpstreamUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+
+}
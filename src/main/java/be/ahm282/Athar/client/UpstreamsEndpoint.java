@@ -0,0 +1,66 @@
+package be.ahm282.Athar.client;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Actuator view of the per-carrier rate limiters, circuit breakers and hedging, served at {@code /actuator/upstreams}.
+ */
+@Component
+@Endpoint(id = "upstreams")
+public class UpstreamsEndpoint {
+
+    private final UpstreamGuards upstreamGuards;
+
+    public UpstreamsEndpoint(UpstreamGuards upstreamGuards) {
+        this.upstreamGuards = upstreamGuards;
+    }
+
+    @ReadOperation
+    public Map<String, Object> upstreams() {
+        Map<String, Object> upstreams = new TreeMap<>();
+
+        for (UpstreamGuard guard : upstreamGuards.getGuards()) {
+            Map<String, Object> state = new LinkedHashMap<>();
+
+            AdaptiveRateLimiter rateLimiter = guard.getRateLimiter();
+            if (rateLimiter != null) {
+                state.put("rateLimit", Map.of(
+                        "permitsPerSecond", rateLimiter.getRate(),
+                        "availablePermits", rateLimiter.getAvailableTokens()));
+            }
+
+            CircuitBreaker circuitBreaker = guard.getCircuitBreaker();
+            if (circuitBreaker != null) {
+                CircuitBreaker.Metrics metrics = circuitBreaker.getMetrics();
+                state.put("circuitBreaker", Map.of(
+                        "state", circuitBreaker.getState().name(),
+                        "failureRate", metrics.getFailureRate(),
+                        "slowCallRate", metrics.getSlowCallRate(),
+                        "bufferedCalls", metrics.getNumberOfBufferedCalls(),
+                        "notPermittedCalls", metrics.getNumberOfNotPermittedCalls()));
+            }
+
+            RequestHedger hedger = guard.getHedger();
+            if (hedger != null) {
+                Map<String, Object> hedge = new LinkedHashMap<>();
+                hedge.put("delay", hedger.getDelay());
+                hedge.put("calls", hedger.getCalls());
+                hedge.put("hedgesSent", hedger.getHedgesSent());
+                hedge.put("hedgesWon", hedger.getHedgesWon());
+                state.put("hedge", hedge);
+            }
+
+            upstreams.put(guard.getCarrier(), state);
+        }
+
+        return upstreams;
+    }
+
+}
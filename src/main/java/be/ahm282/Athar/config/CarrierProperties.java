@@ -0,0 +1,151 @@
+package be.ahm282.Athar.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-carrier upstream settings, bound from {@code athar.carriers.<carrier>.*}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "athar")
+public class CarrierProperties {
+
+    private Map<String, Carrier> carriers = new HashMap<>();
+
+    public Carrier getCarrier(String name) {
+        Carrier carrier = carriers.get(name);
+
+        if (carrier == null) {
+            throw new IllegalStateException("No configuration found for carrier: " + name);
+        }
+
+        return carrier;
+    }
+
+    @Getter
+    @Setter
+    public static class Carrier {
+
+        private String baseUrl;
+        private Transport transport = new Transport();
+        private RateLimit rateLimit = new RateLimit();
+        private CircuitBreaker circuitBreaker = new CircuitBreaker();
+        private Hedge hedge = new Hedge();
+
+        /** Send If-None-Match / If-Modified-Since and skip processing when the carrier data did not change. */
+        private boolean conditionalRequests = true;
+
+        /** Number of tracking numbers whose validators are remembered. */
+        private long validatorCacheSize = 50_000;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Transport {
+
+        /** Maximum number of pooled connections to the carrier. */
+        private int maxConnections = 50;
+
+        /** Requests allowed to wait for a free connection before failing fast. */
+        private int pendingAcquireMaxCount = 500;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+        /** Idle and lifetime limits, enforced by a background eviction task. */
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictionInterval = Duration.ofSeconds(30);
+
+        private Duration connectTimeout = Duration.ofSeconds(3);
+        private Duration readTimeout = Duration.ofSeconds(10);
+        private Duration responseTimeout = Duration.ofSeconds(10);
+
+        /** Negotiate HTTP/2 over TLS when the carrier offers it, falling back to HTTP/1.1. */
+        private boolean http2 = true;
+        private boolean compression = true;
+
+        /** Publish reactor.netty.connection.provider.* pool gauges to Micrometer. */
+        private boolean metrics = true;
+
+    }
+
+    /**
+     * Token bucket whose refill rate adapts to the carrier (additive increase, multiplicative decrease):
+     * it grows while calls succeed quickly and shrinks on 429, 5xx, timeouts and slow calls.
+     */
+    @Getter
+    @Setter
+    public static class RateLimit {
+
+        private boolean enabled = true;
+
+        /** Permits per second, at start-up and the bounds the adaptation stays within. */
+        private double initialRate = 20;
+        private double minRate = 1;
+        private double maxRate = 100;
+
+        /** Bucket capacity: how many calls may go out back to back after an idle period. */
+        private int burst = 20;
+
+        /** Added to the rate after every fast successful call. */
+        private double increaseStep = 0.2;
+
+        /** Multiplies the rate after a throttled, failed or slow call. */
+        private double decreaseFactor = 0.5;
+
+        /** Successful calls slower than this count as congestion. */
+        private Duration latencyTarget = Duration.ofSeconds(2);
+
+        /** Longest a call may wait for a permit before failing fast. */
+        private Duration maxWait = Duration.ofSeconds(2);
+
+    }
+
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+
+        private boolean enabled = true;
+        private float failureRateThreshold = 50;
+        private float slowCallRateThreshold = 80;
+        private Duration slowCallDurationThreshold = Duration.ofSeconds(5);
+        private int slidingWindowSize = 50;
+        private int minimumNumberOfCalls = 20;
+        private Duration waitDurationInOpenState = Duration.ofSeconds(30);
+        private int permittedCallsInHalfOpenState = 5;
+
+    }
+
+    /**
+     * Sends a second, identical request when the first has not answered within a percentile of recent latencies,
+     * and uses whichever answers first.
+     */
+    @Getter
+    @Setter
+    public static class Hedge {
+
+        private boolean enabled = false;
+
+        /** Latency percentile of recent calls after which the hedge is sent. */
+        private double percentile = 95;
+
+        /** Bounds on the hedge delay, whatever the percentile says. */
+        private Duration minDelay = Duration.ofMillis(50);
+        private Duration maxDelay = Duration.ofSeconds(5);
+
+        /** Recent call latencies the percentile is computed over; no hedges are sent before min-samples are in. */
+        private int windowSize = 1000;
+        private int minSamples = 100;
+
+        /** Largest fraction of calls that may be hedged. */
+        private double maxRatio = 0.05;
+
+    }
+
+}
@@ -0,0 +1,20 @@
+package be.ahm282.Athar.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Replaces the reflective getter calls of the response serializers with generated lambdas. Spring Boot registers
+     * every {@link Module} bean on its {@code ObjectMapper}.
+     */
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+}
@@ -0,0 +1,53 @@
+package be.ahm282.Athar.config;
+
+import be.ahm282.Athar.repository.RepositoryTimingLog;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Times every Spring Data repository call, replacing full SQL tracing as the default: slow calls are always
+ * logged, the others only sampled. Statement-level slow queries are logged by Hibernate itself
+ * ({@code hibernate.log_slow_query}), under the same threshold.
+ * <p>
+ * The repositories running plain SQL through a JDBC template ({@code StringDictionary},
+ * {@code ShipmentArchiveRepository}) are neither Spring Data repositories nor go through Hibernate: their calls are not
+ * timed.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "athar.query-log", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class QueryLogConfig {
+
+    @Bean
+    public RepositoryTimingLog repositoryTimingLog(QueryLogProperties properties) {
+        return new RepositoryTimingLog(properties.getSlowThreshold(), properties.getSampleRate());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer slowQueryThresholdCustomizer(QueryLogProperties properties) {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.LOG_SLOW_QUERY, properties.getSlowThreshold().toMillis());
+    }
+
+    /**
+     * Static and resolving the listener lazily, so that registering this post-processor does not initialize beans
+     * early. The customizer runs when each repository is created.
+     */
+    @Bean
+    public static BeanPostProcessor repositoryTimingLogRegistrar(ObjectProvider<RepositoryTimingLog> timingLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addInvocationListener(timingLog.getObject()));
+                }
+                return bean;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,25 @@
+package be.ahm282.Athar.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Repository timing log, bound from {@code athar.query-log.*}. See {@link QueryLogConfig}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "athar.query-log")
+public class QueryLogProperties {
+
+    private boolean enabled = true;
+
+    /** Repository calls and Hibernate statements at least this slow are always logged. */
+    private Duration slowThreshold = Duration.ofMillis(200);
+
+    /** Fraction of the faster calls whose timing is logged anyway, to show the usual cost of each method. */
+    private double sampleRate = 0.01;
+
+}
@@ -0,0 +1,79 @@
+package be.ahm282.Athar.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.sqlite.SQLiteConfig;
+
+import javax.sql.DataSource;
+
+/**
+ * Production SQLite setup: a single-connection writer pool, since SQLite allows one writer at a time, and a
+ * read-only pool that WAL lets run alongside it.
+ * <p>
+ * The application sees one {@link LazyConnectionDataSourceProxy}: the physical connection is only fetched at the
+ * first statement, from the reader pool when the transaction is read-only (such as Spring Data's query methods
+ * outside an enclosing read-write transaction), and from the writer pool otherwise.
+ */
+@Configuration
+@Profile("prod")
+public class SqliteDataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource sqliteWriterDataSource(SqliteProperties properties) {
+        SQLiteConfig config = baseConfig(properties);
+        // Switching to WAL needs write access; the mode is stored in the file, so readers pick it up
+        config.setJournalMode(SQLiteConfig.JournalMode.valueOf(properties.getJournalMode().toUpperCase()));
+
+        return pool("sqlite-writer", properties, config, 1, false);
+    }
+
+    @Bean(destroyMethod = "close")
+    @DependsOn("sqliteWriterDataSource")
+    public HikariDataSource sqliteReaderDataSource(SqliteProperties properties) {
+        SQLiteConfig config = baseConfig(properties);
+        config.setReadOnly(true);
+
+        return pool("sqlite-reader", properties, config, properties.getReaderPoolSize(), true);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource sqliteWriterDataSource, HikariDataSource sqliteReaderDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(sqliteWriterDataSource);
+        dataSource.setReadOnlyDataSource(sqliteReaderDataSource);
+        return dataSource;
+    }
+
+    private static SQLiteConfig baseConfig(SqliteProperties properties) {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setSynchronous(SQLiteConfig.SynchronousMode.valueOf(properties.getSynchronous().toUpperCase()));
+        config.setCacheSize(properties.getCacheSize());
+        config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(properties.getMmapSize()));
+        config.setBusyTimeout((int) properties.getBusyTimeout().toMillis());
+        config.setTempStore(SQLiteConfig.TempStore.MEMORY);
+        return config;
+    }
+
+    private static HikariDataSource pool(String name, SqliteProperties properties, SQLiteConfig config, int size, boolean readOnly) {
+        HikariConfig hikari = new HikariConfig();
+        hikari.setPoolName(name);
+        hikari.setDriverClassName("org.sqlite.JDBC");
+        hikari.setJdbcUrl(properties.getUrl());
+        hikari.setDataSourceProperties(config.toProperties());
+        hikari.setMaximumPoolSize(size);
+        hikari.setMinimumIdle(size);
+        // Must match how the connection was opened: SQLite cannot change the read-only flag afterwards
+        hikari.setReadOnly(readOnly);
+        // Connections hold the page cache and memory map: keep them instead of reopening the file
+        hikari.setMaxLifetime(0);
+        hikari.setIdleTimeout(0);
+        return new HikariDataSource(hikari);
+    }
+
+}
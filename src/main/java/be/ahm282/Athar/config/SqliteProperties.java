@@ -0,0 +1,38 @@
+package be.ahm282.Athar.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Connection settings of the split SQLite reader/writer pools, bound from {@code athar.sqlite.*}.
+ * Only used under the {@code prod} profile, see {@link SqliteDataSourceConfig}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "athar.sqlite")
+public class SqliteProperties {
+
+    private String url = "jdbc:sqlite:./data/database.db";
+
+    /** WAL lets readers run alongside the single writer instead of blocking on it. */
+    private String journalMode = "WAL";
+
+    /** NORMAL is durable against application crashes in WAL mode; only an OS crash can lose the last commits. */
+    private String synchronous = "NORMAL";
+
+    /** Page cache per connection: negative values are KiB, positive values pages. */
+    private int cacheSize = -65_536;
+
+    /** Bytes of the database file read through memory mapping instead of read() calls. */
+    private long mmapSize = 268_435_456;
+
+    /** How long a connection waits for a lock before failing with SQLITE_BUSY. */
+    private Duration busyTimeout = Duration.ofSeconds(5);
+
+    /** Read-only connections; the writer pool always holds exactly one. */
+    private int readerPoolSize = 8;
+
+}
@@ -0,0 +1,122 @@
+package be.ahm282.Athar.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "athar.tracking")
+public class TrackingProperties {
+
+    /** Statuses matching this pattern are final: the shipment will not change anymore. */
+    private String terminalStatusPattern = "(?i)(?!.*\\bnot\\b).*\\b(delivered|returned to (the )?sender)\\b.*";
+
+    /**
+     * How a shipment's events are stored: one {@code tracking_event} row each, or as one compressed history on the
+     * shipment (see {@link be.ahm282.Athar.domain.EventHistory}). Shipments stored before a switch to
+     * {@code compressed} keep being read from their rows until they are refreshed.
+     */
+    private EventStorage eventStorage = EventStorage.ROWS;
+
+    private Batch batch = new Batch();
+    private Cache cache = new Cache();
+    private WriteBehind writeBehind = new WriteBehind();
+    private Query query = new Query();
+    private Archive archive = new Archive();
+
+    public enum EventStorage {
+        ROWS,
+        COMPRESSED
+    }
+
+    @Getter
+    @Setter
+    public static class Batch {
+
+        /** Maximum number of lookups of a single batch that run at the same time. */
+        private int concurrency = 8;
+
+        /** Largest batch accepted by the batch endpoint. */
+        private int maxItems = 500;
+
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        private boolean enabled = true;
+        private long maxSize = 10_000;
+
+        /** How long results are kept when every shipment in them reached a terminal status. */
+        private Duration terminalTtl = Duration.ofDays(3);
+
+        /** How long results are kept while at least one shipment is still moving. */
+        private Duration activeTtl = Duration.ofSeconds(90);
+
+        /** How long an empty result (unknown tracking number) is kept. */
+        private Duration emptyTtl = Duration.ofSeconds(30);
+
+    }
+
+    /**
+     * Persists tracking results on a single background writer instead of in the request, committing pending upserts
+     * in groups. Lookups return the freshly parsed shipments without waiting for the commit.
+     */
+    @Getter
+    @Setter
+    public static class WriteBehind {
+
+        private boolean enabled = false;
+
+        /** Shipments waiting to be written; a full queue makes callers wait, then write themselves. */
+        private int queueCapacity = 10_000;
+
+        /** Most shipments merged into one transaction. */
+        private int maxBatchSize = 500;
+
+        /** How long a caller waits for room in a full queue before writing synchronously. */
+        private Duration offerTimeout = Duration.ofMillis(100);
+
+    }
+
+    @Getter
+    @Setter
+    public static class Query {
+
+        /** Shipments per page of the listing when the request does not ask for a size. */
+        private int defaultPageSize = 50;
+
+        /** Largest page the listing returns, whatever the request asks for. */
+        private int maxPageSize = 500;
+
+    }
+
+    /**
+     * Moves shipments in a terminal status that were not modified for {@code age} to the archive tables, keeping the
+     * hot tables and their indexes small. Archived shipments are still served on lookups.
+     */
+    @Getter
+    @Setter
+    public static class Archive {
+
+        private boolean enabled = false;
+
+        /** How long a final shipment stays in the hot tables after its last change. */
+        private Duration age = Duration.ofDays(30);
+
+        /** Pause between two archival runs. */
+        private Duration interval = Duration.ofHours(1);
+
+        /** Shipments moved per transaction: the writer is held for one batch at a time. */
+        private int batchSize = 100;
+
+        /** Pause after each batch, leaving the writer to the application. */
+        private Duration pause = Duration.ofMillis(200);
+
+    }
+
+}
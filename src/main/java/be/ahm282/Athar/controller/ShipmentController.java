@@ -0,0 +1,37 @@
+package be.ahm282.Athar.controller;
+
+import be.ahm282.Athar.dto.ShipmentPage;
+import be.ahm282.Athar.dto.ShipmentQuery;
+import be.ahm282.Athar.service.ShipmentQueryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@RestController
+@RequestMapping("/api/shipments")
+public class ShipmentController {
+
+    private final ShipmentQueryService shipmentQueryService;
+
+    @Autowired
+    public ShipmentController(ShipmentQueryService shipmentQueryService) {
+        this.shipmentQueryService = shipmentQueryService;
+    }
+
+    /**
+     * Lists stored shipments, filtered by any combination of {@code status}, {@code carrier}, {@code senderName},
+     * {@code receiverName}, {@code destinationPostcode} and {@code destinationMunicipality}. Pass the returned
+     * {@code nextCursor} as {@code cursor} to get the following page.
+     */
+    @GetMapping
+    public Mono<ResponseEntity<ShipmentPage>> findShipments(@ModelAttribute ShipmentQuery query) {
+        return Mono.fromCallable(() -> shipmentQueryService.findShipments(query))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(page -> new ResponseEntity<>(page, HttpStatus.OK))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST)));
+    }
+
+}
@@ -1,15 +1,16 @@
 package be.ahm282.Athar.controller;
 
-import be.ahm282.Athar.domain.TrackingInfo;
+import be.ahm282.Athar.client.UpstreamUnavailableException;
+import be.ahm282.Athar.dto.BatchTrackingItem;
+import be.ahm282.Athar.dto.BatchTrackingResult;
+import be.ahm282.Athar.dto.TrackingInfoResponse;
 import be.ahm282.Athar.dto.TrackingRequest;
 import be.ahm282.Athar.service.TrackingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 
@@ -25,11 +26,19 @@ public class TrackingController {
     }
 
     @GetMapping
-    public ResponseEntity<List<TrackingInfo>> getTrackingInfo(@RequestParam String carrier, @RequestParam String trackingNumber, @RequestParam String postcode) {
+    public Mono<ResponseEntity<List<TrackingInfoResponse>>> getTrackingInfo(@RequestParam String carrier, @RequestParam String trackingNumber, @RequestParam String postcode) {
         TrackingRequest trackingRequest = new TrackingRequest(trackingNumber,  postcode);
-        List<TrackingInfo> trackingInfoList = trackingService.track(carrier, trackingRequest);
 
-        return new ResponseEntity<>(trackingInfoList, HttpStatus.OK);
+        return trackingService.trackAsync(carrier, trackingRequest)
+                .map(trackingInfoList -> new ResponseEntity<>(trackingInfoList, HttpStatus.OK))
+                .onErrorResume(UpstreamUnavailableException.class, e -> Mono.just(new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE)));
+    }
+
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<List<BatchTrackingResult>>> trackBatch(@RequestBody List<BatchTrackingItem> items) {
+        return trackingService.trackBatch(items)
+                .map(results -> new ResponseEntity<>(results, HttpStatus.OK))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST)));
     }
 
 }
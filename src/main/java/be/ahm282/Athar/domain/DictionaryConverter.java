@@ -0,0 +1,55 @@
+package be.ahm282.Athar.domain;
+
+import be.ahm282.Athar.repository.StringDictionary;
+import be.ahm282.Athar.repository.StringDictionary.Kind;
+import jakarta.persistence.AttributeConverter;
+
+/**
+ * Stores a low-cardinality string attribute as its {@link StringDictionary} code, and loads it as the dictionary's
+ * shared instance. One subclass per kind of value; Hibernate creates them through Spring, which injects the dictionary.
+ */
+public abstract class DictionaryConverter implements AttributeConverter<String, Integer> {
+
+    private final StringDictionary dictionary;
+    private final Kind kind;
+
+    protected DictionaryConverter(StringDictionary dictionary, Kind kind) {
+        this.dictionary = dictionary;
+        this.kind = kind;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String value) {
+        return dictionary.codeOf(kind, value);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer code) {
+        return dictionary.valueOf(code);
+    }
+
+    public static class Carrier extends DictionaryConverter {
+        public Carrier(StringDictionary dictionary) {
+            super(dictionary, Kind.CARRIER);
+        }
+    }
+
+    public static class Status extends DictionaryConverter {
+        public Status(StringDictionary dictionary) {
+            super(dictionary, Kind.STATUS);
+        }
+    }
+
+    public static class EventDescription extends DictionaryConverter {
+        public EventDescription(StringDictionary dictionary) {
+            super(dictionary, Kind.EVENT_DESCRIPTION);
+        }
+    }
+
+    public static class EventLocation extends DictionaryConverter {
+        public EventLocation(StringDictionary dictionary) {
+            super(dictionary, Kind.EVENT_LOCATION);
+        }
+    }
+
+}
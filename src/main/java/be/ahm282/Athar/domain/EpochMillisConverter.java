@@ -0,0 +1,25 @@
+package be.ahm282.Athar.domain;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.time.Instant;
+
+/**
+ * Stores instants as epoch milliseconds: SQLite has no timestamp type, and an integer column sorts, compares and
+ * indexes without parsing.
+ */
+@Converter
+public class EpochMillisConverter implements AttributeConverter<Instant, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(Instant instant) {
+        return instant != null ? instant.toEpochMilli() : null;
+    }
+
+    @Override
+    public Instant convertToEntityAttribute(Long epochMillis) {
+        return epochMillis != null ? Instant.ofEpochMilli(epochMillis) : null;
+    }
+
+}
@@ -0,0 +1,39 @@
+package be.ahm282.Athar.domain;
+
+/**
+ * 64-bit FNV-1a hash of an event's date, time, description and location: the stored natural key of a
+ * {@link TrackingEvent} within its shipment.
+ * <p>
+ * The value is persisted, so the function must never change: existing rows would stop matching their refreshed events.
+ */
+public final class EventFingerprint {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private EventFingerprint() {
+    }
+
+    public static long of(String date, String time, String description, String location) {
+        long hash = OFFSET_BASIS;
+        hash = mix(hash, date);
+        hash = mix(hash, time);
+        hash = mix(hash, description);
+        hash = mix(hash, location);
+        return hash;
+    }
+
+    private static long mix(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                hash = (hash ^ (c & 0xff)) * PRIME;
+                hash = (hash ^ (c >>> 8)) * PRIME;
+            }
+        }
+
+        // Field separator, so ("ab", "c") and ("a", "bc") differ; null hashes like the empty string
+        return (hash ^ 0x1f) * PRIME;
+    }
+
+}
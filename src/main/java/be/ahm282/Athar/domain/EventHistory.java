@@ -0,0 +1,282 @@
+package be.ahm282.Athar.domain;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary encoding of a shipment's event history, stored in {@code tracking_info.event_history} when the
+ * {@code compressed} event storage is selected.
+ * <p>
+ * Layout: a format version byte, then one or more segments. A segment is {@code varint rawLength},
+ * {@code varint compressedLength} and the deflated payload: a dictionary of the distinct strings of its events,
+ * followed by the events as a flags byte and four dictionary indices (date, time, location, description; 0 is null).
+ * <p>
+ * Appending adds a segment holding only the new events, leaving the existing bytes as they are. Once a history has
+ * {@value #MAX_SEGMENTS} segments, the next append rewrites it as a single one.
+ */
+public final class EventHistory {
+
+    public static final byte FORMAT_VERSION = 1;
+
+    static final int MAX_SEGMENTS = 8;
+
+    private static final int IRREGULARITY = 1;
+
+    private EventHistory() {
+    }
+
+    public static byte[] encode(List<TrackingEvent> events) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(FORMAT_VERSION);
+        writeSegment(out, events);
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the events of {@code history}, in the order they were appended; empty for a {@code null} history
+     */
+    public static List<TrackingEvent> decode(byte[] history) {
+        List<TrackingEvent> events = new ArrayList<>();
+        if (history == null) {
+            return events;
+        }
+
+        Reader reader = new Reader(history, checkVersion(history));
+        while (reader.hasRemaining()) {
+            readSegment(reader, events);
+        }
+
+        return events;
+    }
+
+    /**
+     * Adds the events of {@code events} whose fingerprint is not in {@code history} yet.
+     *
+     * @return the new history, or {@code history} itself when every event was already in it
+     */
+    public static byte[] append(byte[] history, List<TrackingEvent> events) {
+        if (history == null) {
+            return events.isEmpty() ? null : encode(events);
+        }
+
+        List<TrackingEvent> stored = decode(history);
+        Set<Long> known = new HashSet<>(stored.size() * 2);
+        stored.forEach(event -> known.add(event.getFingerprint()));
+
+        List<TrackingEvent> added = new ArrayList<>();
+        for (TrackingEvent event : events) {
+            if (known.add(fingerprintOf(event))) {
+                added.add(event);
+            }
+        }
+
+        if (added.isEmpty()) {
+            return history;
+        }
+
+        if (countSegments(history) >= MAX_SEGMENTS) {
+            stored.addAll(added);
+            return encode(stored);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(history.length + 64 * added.size());
+        out.writeBytes(history);
+        writeSegment(out, added);
+        return out.toByteArray();
+    }
+
+    static int countSegments(byte[] history) {
+        Reader reader = new Reader(history, checkVersion(history));
+        int segments = 0;
+
+        while (reader.hasRemaining()) {
+            reader.readVarint();
+            reader.skip(reader.readVarint());
+            segments++;
+        }
+
+        return segments;
+    }
+
+    private static void writeSegment(ByteArrayOutputStream out, List<TrackingEvent> events) {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        int[] indices = new int[events.size() * 4];
+
+        for (int i = 0; i < events.size(); i++) {
+            TrackingEvent event = events.get(i);
+            indices[i * 4] = intern(dictionary, strings, event.getDate());
+            indices[i * 4 + 1] = intern(dictionary, strings, event.getTime());
+            indices[i * 4 + 2] = intern(dictionary, strings, event.getLocation());
+            indices[i * 4 + 3] = intern(dictionary, strings, event.getDescription());
+        }
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(32 * strings.size() + 8 * events.size());
+        writeVarint(payload, strings.size());
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarint(payload, bytes.length);
+            payload.writeBytes(bytes);
+        }
+
+        writeVarint(payload, events.size());
+        for (int i = 0; i < events.size(); i++) {
+            payload.write(events.get(i).isIrregularity() ? IRREGULARITY : 0);
+            for (int field = 0; field < 4; field++) {
+                writeVarint(payload, indices[i * 4 + field]);
+            }
+        }
+
+        byte[] raw = payload.toByteArray();
+        byte[] compressed = deflate(raw);
+        writeVarint(out, raw.length);
+        writeVarint(out, compressed.length);
+        out.writeBytes(compressed);
+    }
+
+    private static void readSegment(Reader reader, List<TrackingEvent> events) {
+        int rawLength = reader.readVarint();
+        int compressedLength = reader.readVarint();
+        Reader payload = new Reader(inflate(reader.bytes, reader.position, compressedLength, rawLength), 0);
+        reader.skip(compressedLength);
+
+        String[] strings = new String[payload.readVarint() + 1];
+        for (int i = 1; i < strings.length; i++) {
+            strings[i] = payload.readString(payload.readVarint());
+        }
+
+        int count = payload.readVarint();
+        for (int i = 0; i < count; i++) {
+            TrackingEvent event = new TrackingEvent();
+            event.setIrregularity((payload.readByte() & IRREGULARITY) != 0);
+            event.setDate(strings[payload.readVarint()]);
+            event.setTime(strings[payload.readVarint()]);
+            event.setLocation(strings[payload.readVarint()]);
+            event.setDescription(strings[payload.readVarint()]);
+            event.setFingerprint(EventFingerprint.of(event.getDate(), event.getTime(), event.getDescription(), event.getLocation()));
+            event.setOccurredAt(EventTime.of(event.getDate(), event.getTime()));
+            events.add(event);
+        }
+    }
+
+    private static int intern(Map<String, Integer> dictionary, List<String> strings, String value) {
+        if (value == null) {
+            return 0;
+        }
+
+        return dictionary.computeIfAbsent(value, key -> {
+            strings.add(key);
+            return strings.size();
+        });
+    }
+
+    private static long fingerprintOf(TrackingEvent event) {
+        return event.getFingerprint() != 0
+                ? event.getFingerprint()
+                : EventFingerprint.of(event.getDate(), event.getTime(), event.getDescription(), event.getLocation());
+    }
+
+    private static int checkVersion(byte[] history) {
+        if (history.length == 0 || history[0] != FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported event history format " + (history.length == 0 ? "(empty)" : history[0]));
+        }
+        return 1;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+            byte[] buffer = new byte[Math.max(64, raw.length)];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes, int offset, int length, int rawLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, length);
+            byte[] raw = new byte[rawLength];
+            int read = 0;
+            while (read < rawLength) {
+                int inflated = inflater.inflate(raw, read, rawLength - read);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IllegalStateException("Truncated event history segment");
+                }
+                read += inflated;
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt event history segment", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static final class Reader {
+
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        boolean hasRemaining() {
+            return position < bytes.length;
+        }
+
+        byte readByte() {
+            return bytes[position++];
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[position++];
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        String readString(int length) {
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        void skip(int length) {
+            position += length;
+        }
+
+    }
+
+}
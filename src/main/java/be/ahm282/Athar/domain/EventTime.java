@@ -0,0 +1,37 @@
+package be.ahm282.Athar.domain;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+/**
+ * Normalizes the local date and time of a carrier event, as reported in the carrier payload, to an instant.
+ */
+public final class EventTime {
+
+    /** Carriers report event times in Belgian local time. */
+    public static final ZoneId CARRIER_ZONE = ZoneId.of("Europe/Brussels");
+
+    private EventTime() {
+    }
+
+    /**
+     * @return the instant of the event, or {@code null} when the date is missing or either value is not ISO-8601;
+     * a missing time is taken as midnight
+     */
+    public static Instant of(String date, String time) {
+        if (date == null || date.isEmpty()) {
+            return null;
+        }
+
+        try {
+            LocalTime localTime = time == null || time.isEmpty() ? LocalTime.MIDNIGHT : LocalTime.parse(time);
+            return LocalDate.parse(date).atTime(localTime).atZone(CARRIER_ZONE).toInstant();
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+}
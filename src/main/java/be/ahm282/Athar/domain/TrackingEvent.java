@@ -6,11 +6,20 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.SQLInsert;
+import org.hibernate.id.IncrementGenerator;
+import org.hibernate.jdbc.Expectation;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 
 @Entity
 @Getter
@@ -18,18 +27,59 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tracking_event")
+// Events are deduplicated by the store: inserting an event whose fingerprint is already stored is a no-op.
+// The columns must be listed in the order Hibernate binds them: attributes sorted alphabetically by attribute name,
+// not column name, then the id. The converted location and description therefore bind where location_code and
+// description_code are listed, and trackingInfo where tracking_info_id is. Nothing checks this list: renaming or adding
+// an attribute silently shifts values into the wrong columns, so update it with the fields (TrackingEventRepositoryTest
+// reads every column back).
+@SQLInsert(sql = "INSERT OR IGNORE INTO tracking_event "
+        + "(created_date, date, description_code, fingerprint, irregularity, last_modified_date, location_code, occurred_at, time, tracking_info_id, id) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", verify = Expectation.None.class)
+@Table(name = "tracking_event", uniqueConstraints = @UniqueConstraint(name = "uk_tracking_event_fingerprint",
+        columnNames = {"tracking_info_id", "fingerprint"}))
 public class TrackingEvent {
 
+    /**
+     * The order a shipment's events are listed in, the one it is read from the store in: oldest first, events without
+     * an {@link #occurredAt} first. Sorting is stable, so events of the same instant keep the order they were reported in.
+     */
+    public static final Comparator<TrackingEvent> CHRONOLOGICAL =
+            Comparator.comparing(TrackingEvent::getOccurredAt, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    // Ids are known before the INSERT, which lets Hibernate batch the inserts of a shipment's events. They count up in
+    // memory from the largest id stored, hot or archived, read once on the session's own connection: a table generator
+    // allocates on a second connection, which SQLite cannot let write during a write transaction. This application must
+    // be the only writer of the database.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "tracking_event_id")
+    @GenericGenerator(name = "tracking_event_id", type = IncrementGenerator.class,
+            parameters = @Parameter(name = IncrementGenerator.TABLES, value = "tracking_event,tracking_event_archive"))
     private Long id;
 
     private String date;
     private String time;
+    // Stored as string dictionary codes
+    @Convert(converter = DictionaryConverter.EventLocation.class)
+    @Column(name = "location_code")
     private String location;
+    @Convert(converter = DictionaryConverter.EventDescription.class)
+    @Column(name = "description_code")
     private String description;
     private boolean irregularity;
 
+    /** {@link #date} and {@link #time} as an instant (see {@link EventTime}), stored as epoch milliseconds. */
+    @Convert(converter = EpochMillisConverter.class)
+    @Column(name = "occurred_at")
+    private Instant occurredAt;
+
+    /** See {@link EventFingerprint}; computed once when the event is parsed. */
+    @JsonIgnore
+    @Column(nullable = false)
+    private long fingerprint;
+
     @CreatedDate
     private LocalDateTime createdDate;
 
@@ -42,8 +92,22 @@ public class TrackingEvent {
     private TrackingInfo trackingInfo;
 
 
+    /**
+     * A copy of this event belonging to {@code trackingInfo}; see {@link TrackingInfo#detachedCopy()}.
+     */
+    public TrackingEvent detachedCopy(TrackingInfo trackingInfo) {
+        return new TrackingEvent(id, date, time, location, description, irregularity, occurredAt, fingerprint,
+                createdDate, lastModifiedDate, trackingInfo);
+    }
+
     @PrePersist
     protected void onCreate() {
+        if (fingerprint == 0) {
+            fingerprint = EventFingerprint.of(date, time, description, location);
+        }
+        if (occurredAt == null) {
+            occurredAt = EventTime.of(date, time);
+        }
         createdDate = LocalDateTime.now();
         lastModifiedDate = LocalDateTime.now();
     }
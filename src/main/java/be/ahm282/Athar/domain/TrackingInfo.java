@@ -1,9 +1,14 @@
 package be.ahm282.Athar.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -18,14 +23,25 @@ import java.util.UUID;
 @Setter
 @NoArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
+// Second-level cached, as is the tracking number -> id resolution; regions are configured in application.conf
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tracking_info")
+@NaturalIdCache(region = "tracking_info_natural_id")
+@Table(name = "tracking_info", uniqueConstraints = @UniqueConstraint(name = "uk_tracking_info_tracking_number", columnNames = "tracking_number"))
 public class TrackingInfo {
 
     @Id
     @GeneratedValue(generator = "UUID")
     @Column(updatable = false, nullable = false)
     private UUID id;
+    @NaturalId
     private String trackingNumber;
+    // Stored as string dictionary codes
+    @Convert(converter = DictionaryConverter.Status.class)
+    @Column(name = "status_code")
     private String status;
+    @Convert(converter = DictionaryConverter.Carrier.class)
+    @Column(name = "carrier_code")
     private String carrier;
 
     private String receiverName;
@@ -46,9 +62,78 @@ public class TrackingInfo {
     @LastModifiedDate
     private LocalDateTime lastModifiedDate;
 
+    /** See {@link EventHistory}; only written with the compressed event storage, where it replaces the event rows. */
+    @JsonIgnore
+    @Column(name = "event_history")
+    private byte[] eventHistory;
+
+    // Events are inserted through their own repository: the cached collection is evicted when one is
+    // (hibernate.cache.auto_evict_collection_cache)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tracking_info_events")
+    // Read in order from the (tracking_info_id, occurred_at) index, whose entries end with the rowid id; parsed and
+    // decoded events are sorted the same way (see TrackingEvent.CHRONOLOGICAL)
+    @OrderBy("occurredAt ASC, id ASC")
     @OneToMany(mappedBy = "trackingInfo", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<TrackingEvent> events = new ArrayList<>();
 
+    /**
+     * A copy of this shipment and its events that shares no mutable state with it, for a writer on another thread.
+     */
+    public TrackingInfo detachedCopy() {
+        TrackingInfo copy = copyWithoutEvents();
+
+        List<TrackingEvent> eventCopies = new ArrayList<>(events.size());
+        for (TrackingEvent event : events) {
+            eventCopies.add(event.detachedCopy(copy));
+        }
+        copy.setEvents(eventCopies);
+
+        return copy;
+    }
+
+    /**
+     * A detached copy of this shipment and its events without the ids and audit dates a save assigns, as they were
+     * parsed. A rolled back save leaves them on the objects it wrote, where a new attempt would take them for rows.
+     */
+    public TrackingInfo unsavedCopy() {
+        TrackingInfo copy = detachedCopy();
+        copy.setId(null);
+        copy.setCreatedDate(null);
+        copy.setLastModifiedDate(null);
+        copy.getEvents().forEach(event -> {
+            event.setId(null);
+            event.setCreatedDate(null);
+            event.setLastModifiedDate(null);
+        });
+
+        return copy;
+    }
+
+    /**
+     * A copy of this shipment with an empty event collection, such as the row of the compressed event storage.
+     */
+    public TrackingInfo copyWithoutEvents() {
+        TrackingInfo copy = new TrackingInfo();
+        copy.setId(id);
+        copy.setTrackingNumber(trackingNumber);
+        copy.setStatus(status);
+        copy.setCarrier(carrier);
+        copy.setReceiverName(receiverName);
+        copy.setDestinationStreet(destinationStreet);
+        copy.setDestinationMunicipality(destinationMunicipality);
+        copy.setDestinationPostcode(destinationPostcode);
+        copy.setDestinationCountry(destinationCountry);
+        copy.setSenderName(senderName);
+        copy.setSenderStreet(senderStreet);
+        copy.setSenderMunicipality(senderMunicipality);
+        copy.setSenderPostcode(senderPostcode);
+        copy.setSenderCountry(senderCountry);
+        copy.setCreatedDate(createdDate);
+        copy.setLastModifiedDate(lastModifiedDate);
+        copy.setEventHistory(eventHistory);
+        return copy;
+    }
+
     @PrePersist
     protected void onCreate() {
         createdDate = LocalDateTime.now();
@@ -3,6 +3,8 @@ package be.ahm282.Athar.domain;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.id.IncrementGenerator;
 
 import java.time.LocalDateTime;
 
@@ -14,7 +16,9 @@ public class User {
 
     // Getters and setters
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Counted up in memory from the largest stored id, like the event ids (see TrackingEvent)
+    @GeneratedValue(generator = "users_id")
+    @GenericGenerator(name = "users_id", type = IncrementGenerator.class)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -0,0 +1,19 @@
+package be.ahm282.Athar.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTrackingItem {
+
+    private String carrier;
+    private String trackingNumber;
+    private String postcode;
+
+    public TrackingRequest toTrackingRequest() {
+        return new TrackingRequest(trackingNumber, postcode);
+    }
+
+}
@@ -0,0 +1,51 @@
+package be.ahm282.Athar.dto;
+
+import be.ahm282.Athar.client.UpstreamUnavailableException;
+import be.ahm282.Athar.service.UnsupportedCarrierException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.web.reactive.function.client.WebClientException;
+
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+@Getter
+@AllArgsConstructor
+public class BatchTrackingResult {
+
+    public static final String UNSUPPORTED_CARRIER = "Unsupported carrier";
+    public static final String INVALID_REQUEST = "Invalid request";
+    public static final String UPSTREAM_UNAVAILABLE = "Carrier unavailable";
+    public static final String INTERNAL_ERROR = "Internal error";
+
+    private String carrier;
+    private String trackingNumber;
+    private List<TrackingInfoResponse> results;
+    private String error;
+
+    public static BatchTrackingResult success(BatchTrackingItem item, List<TrackingInfoResponse> results) {
+        return new BatchTrackingResult(item.getCarrier(), item.getTrackingNumber(), results, null);
+    }
+
+    /**
+     * Reports {@code error} with a fixed message per kind of failure. Exception messages are not passed on: they can
+     * hold the carrier URL with the tracking number and postcode, or the SQL of a failed statement.
+     */
+    public static BatchTrackingResult failure(BatchTrackingItem item, Throwable error) {
+        return new BatchTrackingResult(item.getCarrier(), item.getTrackingNumber(), List.of(), errorMessage(error));
+    }
+
+    private static String errorMessage(Throwable error) {
+        if (error instanceof UnsupportedCarrierException) {
+            return UNSUPPORTED_CARRIER;
+        }
+        if (error instanceof IllegalArgumentException) {
+            return INVALID_REQUEST;
+        }
+        if (error instanceof UpstreamUnavailableException || error instanceof WebClientException || error instanceof TimeoutException) {
+            return UPSTREAM_UNAVAILABLE;
+        }
+        return INTERNAL_ERROR;
+    }
+
+}
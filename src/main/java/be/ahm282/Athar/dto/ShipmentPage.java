@@ -0,0 +1,17 @@
+package be.ahm282.Athar.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class ShipmentPage {
+
+    private List<ShipmentSummary> items;
+
+    /** Cursor of the following page, {@code null} on the last page. */
+    private String nextCursor;
+
+}
@@ -0,0 +1,25 @@
+package be.ahm282.Athar.dto;
+
+import lombok.*;
+
+/**
+ * Filters of the shipment listing; every filter left empty matches all shipments, the others are combined with AND.
+ * {@code cursor} is the {@code nextCursor} of the previous page.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShipmentQuery {
+
+    private String status;
+    private String carrier;
+    private String senderName;
+    private String receiverName;
+    private String destinationPostcode;
+    private String destinationMunicipality;
+
+    private String cursor;
+    private Integer size;
+
+}
@@ -0,0 +1,27 @@
+package be.ahm282.Athar.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Listing view of a stored shipment: its own columns only, never its events.
+ */
+@Getter
+@AllArgsConstructor
+public class ShipmentSummary {
+
+    private String trackingNumber;
+    private String carrier;
+    private String status;
+
+    private String receiverName;
+    private String destinationMunicipality;
+    private String destinationPostcode;
+
+    private String senderName;
+
+    private LocalDateTime lastModifiedDate;
+
+}
@@ -0,0 +1,23 @@
+package be.ahm282.Athar.dto;
+
+import be.ahm282.Athar.domain.TrackingEvent;
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class TrackingEventResponse {
+
+    String date;
+    String time;
+    String location;
+    String description;
+    boolean irregularity;
+    Instant occurredAt;
+
+    public static TrackingEventResponse from(TrackingEvent event) {
+        return new TrackingEventResponse(event.getDate(), event.getTime(), event.getLocation(), event.getDescription(), event.isIrregularity(),
+                event.getOccurredAt());
+    }
+
+}
@@ -0,0 +1,76 @@
+package be.ahm282.Athar.dto;
+
+import be.ahm282.Athar.domain.TrackingEvent;
+import be.ahm282.Athar.domain.TrackingInfo;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Immutable view of a shipment as returned by the API. It is built once, before the result is cached, so cache hits
+ * share it safely and rendering it never reaches the entity or the database.
+ */
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TrackingInfoResponse {
+
+    String trackingNumber;
+    String status;
+    String carrier;
+
+    String receiverName;
+    String destinationStreet;
+    String destinationMunicipality;
+    String destinationPostcode;
+    String destinationCountry;
+
+    String senderName;
+    String senderStreet;
+    String senderMunicipality;
+    String senderPostcode;
+    String senderCountry;
+
+    LocalDateTime lastModifiedDate;
+
+    List<TrackingEventResponse> events;
+
+    /**
+     * Reads every attribute of {@code info}, events included: call it while they are loaded.
+     */
+    public static TrackingInfoResponse from(TrackingInfo info) {
+        List<TrackingEvent> events = info.getEvents();
+        TrackingEventResponse[] eventResponses = new TrackingEventResponse[events.size()];
+        for (int i = 0; i < eventResponses.length; i++) {
+            eventResponses[i] = TrackingEventResponse.from(events.get(i));
+        }
+
+        return new TrackingInfoResponse(
+                info.getTrackingNumber(),
+                info.getStatus(),
+                info.getCarrier(),
+                info.getReceiverName(),
+                info.getDestinationStreet(),
+                info.getDestinationMunicipality(),
+                info.getDestinationPostcode(),
+                info.getDestinationCountry(),
+                info.getSenderName(),
+                info.getSenderStreet(),
+                info.getSenderMunicipality(),
+                info.getSenderPostcode(),
+                info.getSenderCountry(),
+                info.getLastModifiedDate(),
+                List.of(eventResponses));
+    }
+
+    public static List<TrackingInfoResponse> fromAll(List<TrackingInfo> infos) {
+        TrackingInfoResponse[] responses = new TrackingInfoResponse[infos.size()];
+        for (int i = 0; i < responses.length; i++) {
+            responses[i] = from(infos.get(i));
+        }
+
+        return List.of(responses);
+    }
+
+}
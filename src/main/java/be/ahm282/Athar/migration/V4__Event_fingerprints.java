@@ -0,0 +1,90 @@
+package be.ahm282.Athar.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Adds {@code tracking_event.fingerprint}, backfills it for existing rows and makes it the natural key of an event
+ * within its shipment, replacing the index over the string columns.
+ * <p>
+ * A Java migration because SQLite has no 64-bit hash (nor XOR) to compute the fingerprint in SQL. The hash is a copy
+ * of {@code EventFingerprint} as of this version, so the migration keeps producing the same values whatever happens to
+ * that class.
+ */
+public class V4__Event_fingerprints extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE tracking_event ADD COLUMN fingerprint bigint not null default 0");
+        }
+
+        backfill(connection);
+
+        try (Statement statement = connection.createStatement()) {
+            // Only a hash collision within a shipment can make two rows share a fingerprint: keep the oldest
+            statement.execute("DELETE FROM tracking_event WHERE id NOT IN "
+                    + "(SELECT MIN(id) FROM tracking_event GROUP BY tracking_info_id, fingerprint)");
+            statement.execute("DROP INDEX uk_tracking_event_natural_key");
+            statement.execute("CREATE UNIQUE INDEX uk_tracking_event_fingerprint ON tracking_event (tracking_info_id, fingerprint)");
+        }
+    }
+
+    private static void backfill(Connection connection) throws SQLException {
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery("SELECT id, date, time, description, location FROM tracking_event");
+             PreparedStatement update = connection.prepareStatement("UPDATE tracking_event SET fingerprint = ? WHERE id = ?")) {
+            int pending = 0;
+
+            while (rows.next()) {
+                update.setLong(1, fingerprint(rows.getString(2), rows.getString(3), rows.getString(4), rows.getString(5)));
+                update.setLong(2, rows.getLong(1));
+                update.addBatch();
+
+                if (++pending == BATCH_SIZE) {
+                    update.executeBatch();
+                    pending = 0;
+                }
+            }
+
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        }
+    }
+
+    private static long fingerprint(String date, String time, String description, String location) {
+        long hash = OFFSET_BASIS;
+        hash = mix(hash, date);
+        hash = mix(hash, time);
+        hash = mix(hash, description);
+        hash = mix(hash, location);
+        return hash;
+    }
+
+    private static long mix(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                hash = (hash ^ (c & 0xff)) * PRIME;
+                hash = (hash ^ (c >>> 8)) * PRIME;
+            }
+        }
+
+        return (hash ^ 0x1f) * PRIME;
+    }
+
+}
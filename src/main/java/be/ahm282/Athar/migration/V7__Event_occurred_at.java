@@ -0,0 +1,92 @@
+package be.ahm282.Athar.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+/**
+ * Adds {@code occurred_at}, the event's date and time as epoch milliseconds, to the hot and archived events,
+ * backfills it and indexes it for time-range queries.
+ * <p>
+ * A Java migration because the carrier's local time must be converted with its time zone rules, which SQLite does
+ * not have. The conversion is a copy of {@code EventTime} as of this version, so the migration keeps producing the
+ * same values whatever happens to that class.
+ */
+public class V7__Event_occurred_at extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final ZoneId CARRIER_ZONE = ZoneId.of("Europe/Brussels");
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE tracking_event ADD COLUMN occurred_at bigint");
+            statement.execute("ALTER TABLE tracking_event_archive ADD COLUMN occurred_at bigint");
+        }
+
+        backfill(connection, "tracking_event");
+        backfill(connection, "tracking_event_archive");
+
+        try (Statement statement = connection.createStatement()) {
+            // A shipment's events in chronological order, and its latest event, straight from the index
+            statement.execute("CREATE INDEX ix_tracking_event_tracking_info_id_occurred_at ON tracking_event (tracking_info_id, occurred_at)");
+            // Events of all shipments within a time range
+            statement.execute("CREATE INDEX ix_tracking_event_occurred_at ON tracking_event (occurred_at)");
+        }
+    }
+
+    private static void backfill(Connection connection, String table) throws SQLException {
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery("SELECT id, date, time FROM " + table);
+             PreparedStatement update = connection.prepareStatement("UPDATE " + table + " SET occurred_at = ? WHERE id = ?")) {
+            int pending = 0;
+
+            while (rows.next()) {
+                Instant occurredAt = occurredAt(rows.getString(2), rows.getString(3));
+                if (occurredAt == null) {
+                    continue;
+                }
+
+                update.setLong(1, occurredAt.toEpochMilli());
+                update.setLong(2, rows.getLong(1));
+                update.addBatch();
+
+                if (++pending == BATCH_SIZE) {
+                    update.executeBatch();
+                    pending = 0;
+                }
+            }
+
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        }
+    }
+
+    private static Instant occurredAt(String date, String time) {
+        if (date == null || date.isEmpty()) {
+            return null;
+        }
+
+        try {
+            LocalTime localTime = time == null || time.isEmpty() ? LocalTime.MIDNIGHT : LocalTime.parse(time);
+            return LocalDate.parse(date).atTime(localTime).atZone(CARRIER_ZONE).toInstant();
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+}
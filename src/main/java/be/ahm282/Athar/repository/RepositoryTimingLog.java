@@ -0,0 +1,45 @@
+package be.ahm282.Athar.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs the repository method and duration of every call slower than the threshold, and of a random sample of the
+ * others. The log line is only built for calls that are logged; its appender writes asynchronously (logback-spring.xml).
+ */
+public class RepositoryTimingLog implements RepositoryMethodInvocationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RepositoryTimingLog.class);
+
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+
+    public RepositoryTimingLog(Duration slowThreshold, double sampleRate) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void afterInvocation(RepositoryMethodInvocation invocation) {
+        long nanos = invocation.getDuration(TimeUnit.NANOSECONDS);
+
+        if (nanos >= slowThresholdNanos) {
+            if (log.isWarnEnabled()) {
+                log.warn("Slow repository call {}.{} took {} ms ({})", invocation.getRepositoryInterface().getSimpleName(),
+                        invocation.getMethod().getName(), TimeUnit.NANOSECONDS.toMillis(nanos), invocation.getResult().getState());
+            }
+            return;
+        }
+
+        if (sampleRate > 0 && log.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.info("Sampled repository call {}.{} took {} µs ({})", invocation.getRepositoryInterface().getSimpleName(),
+                    invocation.getMethod().getName(), TimeUnit.NANOSECONDS.toMicros(nanos), invocation.getResult().getState());
+        }
+    }
+
+}
@@ -0,0 +1,189 @@
+package be.ahm282.Athar.repository;
+
+import be.ahm282.Athar.domain.TrackingEvent;
+import be.ahm282.Athar.domain.TrackingInfo;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The archive tables, holding shipments moved out of {@code tracking_info} and {@code tracking_event} once final and
+ * cold. Plain SQL: rows move between tables with the same columns in bulk, without going through entities.
+ * <p>
+ * Runs in the caller's transaction.
+ */
+@Repository
+public class ShipmentArchiveRepository {
+
+    private static final String INFO_COLUMNS = "id, carrier_code, created_date, destination_country, destination_municipality, "
+            + "destination_postcode, destination_street, last_modified_date, receiver_name, sender_country, "
+            + "sender_municipality, sender_name, sender_postcode, sender_street, status_code, tracking_number, event_history";
+    private static final String EVENT_COLUMNS = "id, created_date, date, description_code, fingerprint, irregularity, "
+            + "last_modified_date, location_code, occurred_at, time, tracking_info_id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final StringDictionary dictionary;
+
+    public ShipmentArchiveRepository(NamedParameterJdbcTemplate jdbcTemplate, StringDictionary dictionary) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * A hot shipment last modified before the cutoff; whether its status is final is decided by the caller.
+     */
+    public record Candidate(long rowid, byte[] id, String status) {
+    }
+
+    /**
+     * Hot shipments last modified before {@code cutoff}, by rowid after {@code afterRowid}: the archiver walks the
+     * table page by page, past the shipments it keeps.
+     */
+    public List<Candidate> findCandidates(LocalDateTime cutoff, long afterRowid, int limit) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("cutoff", Timestamp.valueOf(cutoff))
+                .addValue("afterRowid", afterRowid)
+                .addValue("limit", limit);
+
+        return jdbcTemplate.query("SELECT rowid, id, status_code FROM tracking_info "
+                        + "WHERE rowid > :afterRowid AND last_modified_date < :cutoff ORDER BY rowid LIMIT :limit",
+                parameters, (rs, rowNum) -> mapCandidate(rs));
+    }
+
+    /**
+     * The given shipments that are still last modified before {@code cutoff}, read again in the archiving
+     * transaction: a refresh since {@link #findCandidates} keeps a shipment hot.
+     */
+    public List<Candidate> findCandidatesById(List<byte[]> ids, LocalDateTime cutoff) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("cutoff", Timestamp.valueOf(cutoff));
+
+        return jdbcTemplate.query("SELECT rowid, id, status_code FROM tracking_info WHERE id IN (:ids) AND last_modified_date < :cutoff",
+                parameters, (rs, rowNum) -> mapCandidate(rs));
+    }
+
+    /**
+     * Moves the shipments and their events to the archive tables. An archived copy of the same tracking number, left
+     * by an earlier archival of a shipment that was tracked again since, is replaced.
+     *
+     * @return the number of shipments moved
+     */
+    public int moveToArchive(List<byte[]> ids, LocalDateTime archivedDate) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("archivedDate", Timestamp.valueOf(archivedDate));
+
+        String previousCopies = "SELECT a.id FROM tracking_info_archive a WHERE a.tracking_number IN "
+                + "(SELECT t.tracking_number FROM tracking_info t WHERE t.id IN (:ids))";
+        jdbcTemplate.update("DELETE FROM tracking_event_archive WHERE tracking_info_id IN (" + previousCopies + ")", parameters);
+        jdbcTemplate.update("DELETE FROM tracking_info_archive WHERE id IN (" + previousCopies + ")", parameters);
+
+        int moved = jdbcTemplate.update("INSERT INTO tracking_info_archive (" + INFO_COLUMNS + ", archived_date) "
+                + "SELECT " + INFO_COLUMNS + ", :archivedDate FROM tracking_info WHERE id IN (:ids)", parameters);
+        jdbcTemplate.update("INSERT INTO tracking_event_archive (" + EVENT_COLUMNS + ") "
+                + "SELECT " + EVENT_COLUMNS + " FROM tracking_event WHERE tracking_info_id IN (:ids)", parameters);
+
+        jdbcTemplate.update("DELETE FROM tracking_event WHERE tracking_info_id IN (:ids)", parameters);
+        jdbcTemplate.update("DELETE FROM tracking_info WHERE id IN (:ids)", parameters);
+
+        return moved;
+    }
+
+    /**
+     * @return the archived shipment with its events, detached: archived shipments are read-only
+     */
+    public Optional<TrackingInfo> findByTrackingNumber(String trackingNumber) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("trackingNumber", trackingNumber);
+
+        List<TrackingInfo> infos = jdbcTemplate.query("SELECT " + INFO_COLUMNS + " FROM tracking_info_archive WHERE tracking_number = :trackingNumber",
+                parameters, (rs, rowNum) -> mapInfo(rs));
+        if (infos.isEmpty()) {
+            return Optional.empty();
+        }
+
+        TrackingInfo info = infos.get(0);
+        List<TrackingEvent> events = jdbcTemplate.query("SELECT " + EVENT_COLUMNS + " FROM tracking_event_archive "
+                        + "WHERE tracking_info_id = :id ORDER BY occurred_at, id",
+                new MapSqlParameterSource("id", toBytes(info.getId())), (rs, rowNum) -> mapEvent(rs, info));
+        info.getEvents().addAll(events);
+
+        return Optional.of(info);
+    }
+
+    private Candidate mapCandidate(ResultSet rs) throws SQLException {
+        return new Candidate(rs.getLong(1), rs.getBytes(2), dictionary.valueOf(getInteger(rs, "status_code")));
+    }
+
+    private TrackingInfo mapInfo(ResultSet rs) throws SQLException {
+        TrackingInfo info = new TrackingInfo();
+        info.setId(toUuid(rs.getBytes("id")));
+        info.setCarrier(dictionary.valueOf(getInteger(rs, "carrier_code")));
+        info.setCreatedDate(toLocalDateTime(rs.getTimestamp("created_date")));
+        info.setDestinationCountry(rs.getString("destination_country"));
+        info.setDestinationMunicipality(rs.getString("destination_municipality"));
+        info.setDestinationPostcode(rs.getString("destination_postcode"));
+        info.setDestinationStreet(rs.getString("destination_street"));
+        info.setLastModifiedDate(toLocalDateTime(rs.getTimestamp("last_modified_date")));
+        info.setReceiverName(rs.getString("receiver_name"));
+        info.setSenderCountry(rs.getString("sender_country"));
+        info.setSenderMunicipality(rs.getString("sender_municipality"));
+        info.setSenderName(rs.getString("sender_name"));
+        info.setSenderPostcode(rs.getString("sender_postcode"));
+        info.setSenderStreet(rs.getString("sender_street"));
+        info.setStatus(dictionary.valueOf(getInteger(rs, "status_code")));
+        info.setTrackingNumber(rs.getString("tracking_number"));
+        info.setEventHistory(rs.getBytes("event_history"));
+        return info;
+    }
+
+    private TrackingEvent mapEvent(ResultSet rs, TrackingInfo info) throws SQLException {
+        TrackingEvent event = new TrackingEvent();
+        event.setId(rs.getLong("id"));
+        event.setCreatedDate(toLocalDateTime(rs.getTimestamp("created_date")));
+        event.setDate(rs.getString("date"));
+        event.setDescription(dictionary.valueOf(getInteger(rs, "description_code")));
+        event.setFingerprint(rs.getLong("fingerprint"));
+        event.setIrregularity(rs.getBoolean("irregularity"));
+        event.setLastModifiedDate(toLocalDateTime(rs.getTimestamp("last_modified_date")));
+        event.setLocation(dictionary.valueOf(getInteger(rs, "location_code")));
+        long occurredAt = rs.getLong("occurred_at");
+        event.setOccurredAt(rs.wasNull() ? null : Instant.ofEpochMilli(occurredAt));
+        event.setTime(rs.getString("time"));
+        event.setTrackingInfo(info);
+        return event;
+    }
+
+    // Hibernate stores UUIDs as their 16 bytes, most significant first
+    private static UUID toUuid(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private static Integer getInteger(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+}
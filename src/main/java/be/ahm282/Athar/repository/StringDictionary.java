@@ -0,0 +1,127 @@
+package be.ahm282.Athar.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code string_dictionary} table: the few hundred distinct carriers, statuses, event descriptions and event
+ * locations, referenced by code from the tracking tables (see {@code DictionaryConverter}).
+ * <p>
+ * Both directions are kept in memory once seen, and a value is always decoded to the same String instance, so the
+ * loaded shipments share them. A new value is added by the write transaction storing it, and only kept in memory once
+ * that transaction commits: SQLite hands out the code of a rolled back row again.
+ * <p>
+ * Runs in the caller's transaction.
+ */
+@Repository
+public class StringDictionary {
+
+    /** Code of a value that is not in the dictionary; codes start at 1, so it matches no row. */
+    public static final int UNKNOWN = 0;
+
+    public enum Kind {
+        CARRIER, STATUS, EVENT_DESCRIPTION, EVENT_LOCATION;
+
+        private final String key = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Map<Kind, Map<String, Integer>> codes = new EnumMap<>(Kind.class);
+    private final Map<Integer, String> values = new ConcurrentHashMap<>();
+
+    public StringDictionary(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        for (Kind kind : Kind.values()) {
+            codes.put(kind, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * @return the code of {@code value}, added to the dictionary in a read-write transaction; {@link #UNKNOWN} for a
+     * value that is not in it otherwise, such as a query filter
+     */
+    public Integer codeOf(Kind kind, String value) {
+        if (value == null) {
+            return null;
+        }
+
+        Integer code = codes.get(kind).get(value);
+        if (code != null) {
+            return code;
+        }
+
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("kind", kind.key)
+                .addValue("value", value);
+        if (isReadWriteTransaction()) {
+            jdbcTemplate.update("INSERT OR IGNORE INTO string_dictionary (kind, value) VALUES (:kind, :value)", parameters);
+        }
+
+        List<Integer> found = jdbcTemplate.queryForList("SELECT code FROM string_dictionary WHERE kind = :kind AND value = :value",
+                parameters, Integer.class);
+        if (found.isEmpty()) {
+            return UNKNOWN;
+        }
+
+        remember(kind, value, found.get(0));
+        return found.get(0);
+    }
+
+    /**
+     * @return the value of {@code code}, the same instance for every call once it is in memory
+     */
+    public String valueOf(Integer code) {
+        if (code == null) {
+            return null;
+        }
+
+        String value = values.get(code);
+        if (value != null) {
+            return value;
+        }
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT kind, value FROM string_dictionary WHERE code = :code",
+                new MapSqlParameterSource("code", code));
+        if (rows.isEmpty()) {
+            throw new IllegalStateException("Unknown string dictionary code " + code);
+        }
+
+        Kind kind = Kind.valueOf(((String) rows.get(0).get("kind")).toUpperCase(Locale.ROOT));
+        return remember(kind, (String) rows.get(0).get("value"), code);
+    }
+
+    private String remember(Kind kind, String value, int code) {
+        if (isReadWriteTransaction() && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(kind, value, code);
+                }
+            });
+            return value;
+        }
+
+        return publish(kind, value, code);
+    }
+
+    private String publish(Kind kind, String value, int code) {
+        String canonical = values.computeIfAbsent(code, key -> value);
+        codes.get(kind).putIfAbsent(canonical, code);
+        return canonical;
+    }
+
+    private static boolean isReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+}
@@ -2,12 +2,41 @@ package be.ahm282.Athar.repository;
 
 import be.ahm282.Athar.domain.TrackingEvent;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
-public interface TrackingEventRepository extends JpaRepository<TrackingEvent, Long> {
+public interface TrackingEventRepository extends JpaRepository<TrackingEvent, Long>, TrackingEventRepositoryCustom {
 
     List<TrackingEvent> findByTrackingInfoId(UUID trackingInfoId);
 
-}
\ No newline at end of file
+    interface StoredFingerprint {
+        UUID getTrackingInfoId();
+        long getFingerprint();
+    }
+
+    // Read from the (tracking_info_id, fingerprint) index alone
+    @Query("SELECT e.trackingInfo.id AS trackingInfoId, e.fingerprint AS fingerprint FROM TrackingEvent e "
+            + "WHERE e.trackingInfo.id IN :trackingInfoIds")
+    List<StoredFingerprint> findFingerprintsByTrackingInfoIdIn(@Param("trackingInfoIds") Collection<UUID> trackingInfoIds);
+
+    // Range scan of the occurred_at index, e.g. the events of the last hour
+    List<TrackingEvent> findByOccurredAtGreaterThanEqualOrderByOccurredAt(Instant since);
+
+    // Last entry of the shipment in the (tracking_info_id, occurred_at) index
+    Optional<TrackingEvent> findFirstByTrackingInfoIdOrderByOccurredAtDesc(UUID trackingInfoId);
+
+    /**
+     * The latest event of each shipment, one index seek per shipment. Events sharing the latest instant are all
+     * returned.
+     */
+    @Query("SELECT e FROM TrackingEvent e WHERE e.trackingInfo.id IN :trackingInfoIds AND e.occurredAt = "
+            + "(SELECT MAX(l.occurredAt) FROM TrackingEvent l WHERE l.trackingInfo = e.trackingInfo)")
+    List<TrackingEvent> findLatestByTrackingInfoIdIn(@Param("trackingInfoIds") Collection<UUID> trackingInfoIds);
+
+}
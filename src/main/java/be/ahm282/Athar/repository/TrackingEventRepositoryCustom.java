@@ -0,0 +1,19 @@
+package be.ahm282.Athar.repository;
+
+import be.ahm282.Athar.domain.TrackingEvent;
+
+import java.util.List;
+
+public interface TrackingEventRepositoryCustom {
+
+    /**
+     * Inserts new events without putting them in the second-level cache: the store ignores an event whose
+     * fingerprint it already holds (see {@link TrackingEvent}), and such an event must not be cached under an id no
+     * row has. The events are cached once read back through their shipment.
+     * <p>
+     * Nothing written by the rest of the transaction is put in the cache either, only evicted, so this is meant as
+     * its last write.
+     */
+    void insertAll(List<TrackingEvent> events);
+
+}
@@ -0,0 +1,28 @@
+package be.ahm282.Athar.repository;
+
+import be.ahm282.Athar.domain.TrackingEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+class TrackingEventRepositoryCustomImpl implements TrackingEventRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public void insertAll(List<TrackingEvent> events) {
+        Session session = entityManager.unwrap(Session.class);
+        // Hibernate puts inserted entities in the cache when the transaction completes, under the cache mode the
+        // session has by then; the session is bound to this transaction, so the mode is not restored
+        session.setCacheMode(CacheMode.GET);
+        events.forEach(session::persist);
+        session.flush();
+    }
+
+}
@@ -2,16 +2,25 @@ package be.ahm282.Athar.repository;
 
 import be.ahm282.Athar.domain.TrackingInfo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface TrackingInfoRepository extends JpaRepository<TrackingInfo, UUID> {
+public interface TrackingInfoRepository extends JpaRepository<TrackingInfo, UUID>, TrackingInfoRepositoryCustom {
 
     Optional<TrackingInfo> findByTrackingNumber(String trackingNumber);
+    List<TrackingInfo> findAllByTrackingNumberIn(Collection<String> trackingNumbers);
+
+    // Loads the shipments together with their events in a single round-trip
+    @Query("SELECT DISTINCT t FROM TrackingInfo t LEFT JOIN FETCH t.events WHERE t.trackingNumber IN :trackingNumbers")
+    List<TrackingInfo> findAllWithEventsByTrackingNumberIn(@Param("trackingNumbers") Collection<String> trackingNumbers);
+
     List<TrackingInfo> findByStatus(String status);
     List<TrackingInfo> findByCarrier(String carrier);
 
@@ -0,0 +1,29 @@
+package be.ahm282.Athar.repository;
+
+import be.ahm282.Athar.domain.TrackingInfo;
+import be.ahm282.Athar.dto.ShipmentSummary;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface TrackingInfoRepositoryCustom {
+
+    /**
+     * Loads a shipment and its events through the second-level cache: the tracking number is resolved to the id by
+     * the natural id cache, then the shipment, its event ids and the events come from their cache regions. Only the
+     * parts missing from the cache are read from the database.
+     */
+    Optional<TrackingInfo> findCachedByTrackingNumber(String trackingNumber);
+
+    /**
+     * One page of shipment summaries after {@code afterTrackingNumber}, in tracking number order. Null filters match
+     * every shipment and are left out of the query, so the cursor is a range seek on the tracking number index, or
+     * on {@code (status_code, tracking_number)} when filtering by status. {@code page} only bounds the result: the
+     * order is fixed by the query.
+     */
+    List<ShipmentSummary> findSummaries(String afterTrackingNumber, String status, String carrier, String senderName,
+                                        String receiverName, String destinationPostcode, String destinationMunicipality,
+                                        Pageable page);
+
+}
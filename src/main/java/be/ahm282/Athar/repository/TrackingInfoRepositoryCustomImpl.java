@@ -0,0 +1,78 @@
+package be.ahm282.Athar.repository;
+
+import be.ahm282.Athar.domain.TrackingInfo;
+import be.ahm282.Athar.dto.ShipmentSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+class TrackingInfoRepositoryCustomImpl implements TrackingInfoRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<TrackingInfo> findCachedByTrackingNumber(String trackingNumber) {
+        Optional<TrackingInfo> info = entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(TrackingInfo.class)
+                .loadOptional(trackingNumber);
+
+        // Loaded inside the transaction, so callers never lazy-load outside of it
+        info.ifPresent(loaded -> Hibernate.initialize(loaded.getEvents()));
+        return info;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ShipmentSummary> findSummaries(String afterTrackingNumber, String status, String carrier, String senderName,
+                                               String receiverName, String destinationPostcode, String destinationMunicipality,
+                                               Pageable page) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ShipmentSummary> query = cb.createQuery(ShipmentSummary.class);
+        Root<TrackingInfo> t = query.from(TrackingInfo.class);
+
+        // Only the filters given: an "IS NULL OR" guard keeps SQLite from seeking the index
+        List<Predicate> predicates = new ArrayList<>();
+        if (afterTrackingNumber != null) {
+            predicates.add(cb.greaterThan(t.get("trackingNumber"), afterTrackingNumber));
+        }
+        // Compared by dictionary code: with the cursor, a range seek on ix_tracking_info_status_code (V8), which also
+        // yields the rows in tracking number order
+        addEqual(cb, t, predicates, "status", status);
+        addEqual(cb, t, predicates, "carrier", carrier);
+        addEqual(cb, t, predicates, "senderName", senderName);
+        addEqual(cb, t, predicates, "receiverName", receiverName);
+        addEqual(cb, t, predicates, "destinationPostcode", destinationPostcode);
+        addEqual(cb, t, predicates, "destinationMunicipality", destinationMunicipality);
+
+        query.select(cb.construct(ShipmentSummary.class, t.get("trackingNumber"), t.get("carrier"), t.get("status"),
+                        t.get("receiverName"), t.get("destinationMunicipality"), t.get("destinationPostcode"),
+                        t.get("senderName"), t.get("lastModifiedDate")))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.asc(t.get("trackingNumber")));
+
+        return entityManager.createQuery(query)
+                .setFirstResult((int) page.getOffset())
+                .setMaxResults(page.getPageSize())
+                .getResultList();
+    }
+
+    private static void addEqual(CriteriaBuilder cb, Root<TrackingInfo> t, List<Predicate> predicates, String attribute, String value) {
+        if (value != null) {
+            predicates.add(cb.equal(t.get(attribute), value));
+        }
+    }
+
+}
@@ -0,0 +1,182 @@
+package be.ahm282.Athar.service;
+
+import be.ahm282.Athar.config.TrackingProperties;
+import be.ahm282.Athar.domain.TrackingInfo;
+import be.ahm282.Athar.repository.ShipmentArchiveRepository;
+import be.ahm282.Athar.repository.ShipmentArchiveRepository.Candidate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job moving final, cold shipments to the archive tables (see {@link TrackingProperties.Archive}).
+ * <p>
+ * The hot table is walked in read-only transactions, which the prod profile serves from the reader pool. Each batch
+ * is then moved in its own short write transaction, after checking again that the shipments were not refreshed in
+ * the meantime, and the job pauses before the next batch so the application's writes are not held up.
+ */
+@Component
+public class ShipmentArchiver implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ShipmentArchiver.class);
+    private static final String EVENTS_ROLE = TrackingInfo.class.getName() + ".events";
+
+    private final ShipmentArchiveRepository archiveRepository;
+    private final ShipmentStatusClassifier statusClassifier;
+    private final TrackingProperties.Archive config;
+    private final TransactionOperations readTransaction;
+    private final TransactionOperations writeTransaction;
+    private final Cache secondLevelCache;
+    private final Counter archived;
+
+    private ScheduledExecutorService executor;
+    private volatile boolean stopped;
+
+    public ShipmentArchiver(ShipmentArchiveRepository archiveRepository, ShipmentStatusClassifier statusClassifier, TrackingProperties trackingProperties,
+                            PlatformTransactionManager transactionManager, EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        this.archiveRepository = archiveRepository;
+        this.statusClassifier = statusClassifier;
+        this.config = trackingProperties.getArchive();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        this.readTransaction = readOnly;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+
+        this.secondLevelCache = entityManagerFactory.getCache().unwrap(Cache.class);
+        this.archived = Counter.builder("athar.archive.shipments")
+                .description("Shipments moved to the archive tables")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts once the application is ready, so the first run never competes with the schema migrations.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shipment-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::runSafely, config.getInterval().toMillis(), config.getInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        stopped = true;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * One pass over the hot table.
+     *
+     * @return the number of shipments archived
+     */
+    public int archiveDue() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minus(config.getAge());
+        long afterRowid = 0;
+        int total = 0;
+
+        while (!stopped) {
+            long from = afterRowid;
+            List<Candidate> page = readTransaction.execute(status -> archiveRepository.findCandidates(cutoff, from, config.getBatchSize()));
+            if (page == null || page.isEmpty()) {
+                break;
+            }
+            afterRowid = page.get(page.size() - 1).rowid();
+
+            List<byte[]> terminal = terminalIds(page);
+            if (terminal.isEmpty()) {
+                continue;
+            }
+
+            List<byte[]> moved = writeTransaction.execute(status -> {
+                List<byte[]> confirmed = terminalIds(archiveRepository.findCandidatesById(terminal, cutoff));
+                if (!confirmed.isEmpty()) {
+                    archiveRepository.moveToArchive(confirmed, now);
+                }
+                return confirmed;
+            });
+
+            if (moved != null && !moved.isEmpty()) {
+                // After the commit, so a concurrent read cannot cache the rows again from the hot table
+                evictFromCache(moved);
+                total += moved.size();
+                archived.increment(moved.size());
+            }
+
+            if (!pause()) {
+                break;
+            }
+        }
+
+        // The natural id cache has no per-key eviction: drop it once per pass
+        if (total > 0) {
+            secondLevelCache.evictNaturalIdData(TrackingInfo.class);
+            log.info("Archived {} shipments not modified since {}", total, cutoff);
+        }
+
+        return total;
+    }
+
+    private void runSafely() {
+        try {
+            archiveDue();
+        } catch (RuntimeException e) {
+            log.error("Shipment archival failed, retrying in {}", config.getInterval(), e);
+        }
+    }
+
+    private List<byte[]> terminalIds(List<Candidate> candidates) {
+        return candidates.stream()
+                .filter(candidate -> statusClassifier.isTerminal(candidate.status()))
+                .map(Candidate::id)
+                .toList();
+    }
+
+    private void evictFromCache(List<byte[]> ids) {
+        for (byte[] id : ids) {
+            ByteBuffer buffer = ByteBuffer.wrap(id);
+            UUID uuid = new UUID(buffer.getLong(), buffer.getLong());
+            secondLevelCache.evictEntityData(TrackingInfo.class, uuid);
+            secondLevelCache.evictCollectionData(EVENTS_ROLE, uuid);
+        }
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(config.getPause().toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+}
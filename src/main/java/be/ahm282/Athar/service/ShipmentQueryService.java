@@ -0,0 +1,85 @@
+package be.ahm282.Athar.service;
+
+import be.ahm282.Athar.config.TrackingProperties;
+import be.ahm282.Athar.dto.ShipmentPage;
+import be.ahm282.Athar.dto.ShipmentQuery;
+import be.ahm282.Athar.dto.ShipmentSummary;
+import be.ahm282.Athar.repository.TrackingInfoRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Lists stored shipments without going to the carriers. Pages are keyed by tracking number: the cursor is the last
+ * tracking number of the previous page, encoded so clients treat it as opaque.
+ */
+@Service
+public class ShipmentQueryService {
+
+    private final TrackingInfoRepository trackingInfoRepository;
+    private final TrackingProperties.Query queryProperties;
+
+    public ShipmentQueryService(TrackingInfoRepository trackingInfoRepository, TrackingProperties trackingProperties) {
+        this.trackingInfoRepository = trackingInfoRepository;
+        this.queryProperties = trackingProperties.getQuery();
+    }
+
+    @Transactional(readOnly = true)
+    public ShipmentPage findShipments(ShipmentQuery query) {
+        int size = resolvePageSize(query.getSize());
+
+        // One extra row tells whether another page follows, without a count query
+        List<ShipmentSummary> rows = trackingInfoRepository.findSummaries(
+                decodeCursor(query.getCursor()),
+                emptyToNull(query.getStatus()),
+                emptyToNull(query.getCarrier()),
+                emptyToNull(query.getSenderName()),
+                emptyToNull(query.getReceiverName()),
+                emptyToNull(query.getDestinationPostcode()),
+                emptyToNull(query.getDestinationMunicipality()),
+                PageRequest.ofSize(size + 1));
+
+        if (rows.size() <= size) {
+            return new ShipmentPage(rows, null);
+        }
+
+        List<ShipmentSummary> items = rows.subList(0, size);
+        return new ShipmentPage(items, encodeCursor(items.get(size - 1).getTrackingNumber()));
+    }
+
+    private int resolvePageSize(Integer requested) {
+        if (requested == null) {
+            return queryProperties.getDefaultPageSize();
+        }
+        if (requested < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+
+        return Math.min(requested, queryProperties.getMaxPageSize());
+    }
+
+    private static String encodeCursor(String trackingNumber) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(trackingNumber.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+}
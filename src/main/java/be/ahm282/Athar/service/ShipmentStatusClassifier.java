@@ -0,0 +1,21 @@
+package be.ahm282.Athar.service;
+
+import be.ahm282.Athar.config.TrackingProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.regex.Pattern;
+
+@Component
+public class ShipmentStatusClassifier {
+
+    private final Pattern terminalStatusPattern;
+
+    public ShipmentStatusClassifier(TrackingProperties trackingProperties) {
+        this.terminalStatusPattern = Pattern.compile(trackingProperties.getTerminalStatusPattern());
+    }
+
+    public boolean isTerminal(String status) {
+        return status != null && terminalStatusPattern.matcher(status).matches();
+    }
+
+}
@@ -0,0 +1,42 @@
+package be.ahm282.Athar.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: while a call is in flight, later callers for that key
+ * share its outcome instead of starting their own. Once the call terminates the key is released,
+ * so results and errors are never kept beyond the flight itself.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    public Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> startFlight(k, call)));
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private Mono<V> startFlight(K key, Supplier<Mono<V>> call) {
+        AtomicReference<Mono<V>> self = new AtomicReference<>();
+
+        // Released before cache() stores the outcome: a caller arriving while it is handed out starts a new flight
+        // instead of replaying the finished one
+        Runnable release = () -> inFlight.remove(key, self.get());
+        Mono<V> flight = Mono.defer(call)
+                .doOnTerminate(release)
+                .doOnCancel(release)
+                .cache();
+        self.set(flight);
+
+        return flight;
+    }
+
+}
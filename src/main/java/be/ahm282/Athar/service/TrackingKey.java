@@ -0,0 +1,16 @@
+package be.ahm282.Athar.service;
+
+import be.ahm282.Athar.dto.TrackingRequest;
+
+import java.util.Locale;
+
+/**
+ * Identifies one upstream lookup: the same key always yields the same carrier request.
+ */
+public record TrackingKey(String carrier, String trackingNumber, String postcode) {
+
+    public static TrackingKey of(String carrier, TrackingRequest request) {
+        return new TrackingKey(carrier.trim().toLowerCase(Locale.ROOT), request.getTrackingNumber(), request.getPostcode());
+    }
+
+}
@@ -0,0 +1,82 @@
+package be.ahm282.Athar.service;
+
+import be.ahm282.Athar.config.TrackingProperties;
+import be.ahm282.Athar.dto.TrackingInfoResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Bounded cache of carrier lookups whose time-to-live depends on the shipment status:
+ * delivered parcels are kept for days, parcels still in transit only for a short while.
+ */
+@Component
+public class TrackingResultCache {
+
+    private final TrackingProperties.Cache cacheProperties;
+    private final ShipmentStatusClassifier statusClassifier;
+    private final Cache<TrackingKey, List<TrackingInfoResponse>> cache;
+
+    public TrackingResultCache(TrackingProperties trackingProperties, ShipmentStatusClassifier statusClassifier, MeterRegistry meterRegistry) {
+        this.cacheProperties = trackingProperties.getCache();
+        this.statusClassifier = statusClassifier;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaxSize())
+                .expireAfter(new StatusAwareExpiry())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "tracking.results");
+    }
+
+    public List<TrackingInfoResponse> get(TrackingKey key) {
+        return cacheProperties.isEnabled() ? cache.getIfPresent(key) : null;
+    }
+
+    public void put(TrackingKey key, List<TrackingInfoResponse> results) {
+        if (cacheProperties.isEnabled()) {
+            cache.put(key, List.copyOf(results));
+        }
+    }
+
+    public void invalidate(TrackingKey key) {
+        cache.invalidate(key);
+    }
+
+    Duration timeToLive(List<TrackingInfoResponse> results) {
+        if (results.isEmpty()) {
+            return cacheProperties.getEmptyTtl();
+        }
+
+        boolean allTerminal = results.stream()
+                .allMatch(info -> statusClassifier.isTerminal(info.getStatus()));
+
+        return allTerminal ? cacheProperties.getTerminalTtl() : cacheProperties.getActiveTtl();
+    }
+
+    private class StatusAwareExpiry implements Expiry<TrackingKey, List<TrackingInfoResponse>> {
+
+        @Override
+        public long expireAfterCreate(TrackingKey key, List<TrackingInfoResponse> value, long currentTime) {
+            return timeToLive(value).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(TrackingKey key, List<TrackingInfoResponse> value, long currentTime, long currentDuration) {
+            return timeToLive(value).toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(TrackingKey key, List<TrackingInfoResponse> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
@@ -1,28 +1,123 @@
 package be.ahm282.Athar.service;
 
+import be.ahm282.Athar.config.TrackingProperties;
 import be.ahm282.Athar.domain.TrackingInfo;
+import be.ahm282.Athar.dto.BatchTrackingItem;
+import be.ahm282.Athar.dto.BatchTrackingResult;
+import be.ahm282.Athar.dto.TrackingInfoResponse;
 import be.ahm282.Athar.dto.TrackingRequest;
 import be.ahm282.Athar.strategy.TrackingStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Objects;
 
 @Service
 public class TrackingService {
 
+    private static final Logger log = LoggerFactory.getLogger(TrackingService.class);
+
     private final List<TrackingStrategy> strategies;
+    private final TrackingProperties.Batch batchProperties;
+    private final TrackingResultCache resultCache;
+    private final SingleFlight<TrackingKey, List<TrackingInfoResponse>> singleFlight = new SingleFlight<>();
 
-    public TrackingService(List<TrackingStrategy> strategies) {
+    public TrackingService(List<TrackingStrategy> strategies, TrackingProperties trackingProperties, TrackingResultCache resultCache) {
         this.strategies = strategies;
+        this.batchProperties = trackingProperties.getBatch();
+        this.resultCache = resultCache;
         System.out.println(strategies.toString());
     }
 
-    public List<TrackingInfo> track(String carrier, TrackingRequest request) {
+    public List<TrackingInfoResponse> track(String carrier, TrackingRequest request) {
+        TrackingStrategy strategy = resolveStrategy(carrier);
+        TrackingKey key = TrackingKey.of(carrier, request);
+
+        List<TrackingInfoResponse> cached = resultCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        return singleFlight.execute(key, () -> lookup(key, Mono.fromCallable(() -> strategy.track(request))))
+                .block();
+    }
+
+    public Mono<List<TrackingInfoResponse>> trackAsync(String carrier, TrackingRequest request) {
+        return Mono.defer(() -> {
+            TrackingStrategy strategy = resolveStrategy(carrier);
+            TrackingKey key = TrackingKey.of(carrier, request);
+
+            List<TrackingInfoResponse> cached = resultCache.get(key);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+
+            return singleFlight.execute(key, () -> lookup(key, strategy.trackAsync(request)));
+        });
+    }
+
+    /**
+     * Tracks every item concurrently, at most {@code athar.tracking.batch.concurrency} at a time.
+     * Results keep the order of the input; a failing item is reported in its own result and does not fail the batch.
+     * A missing batch, a missing item or too many items fail the whole batch with an {@link IllegalArgumentException}.
+     */
+    public Mono<List<BatchTrackingResult>> trackBatch(List<BatchTrackingItem> items) {
+        if (items == null) {
+            return Mono.error(new IllegalArgumentException("Batch items are required!"));
+        }
+
+        if (items.size() > batchProperties.getMaxItems()) {
+            return Mono.error(new IllegalArgumentException("Batch exceeds the maximum of " + batchProperties.getMaxItems() + " items"));
+        }
+
+        if (items.stream().anyMatch(Objects::isNull)) {
+            return Mono.error(new IllegalArgumentException("Batch items cannot be null!"));
+        }
+
+        return Flux.fromIterable(items)
+                .flatMapSequential(item -> trackAsync(item.getCarrier(), item.toTrackingRequest())
+                                .map(results -> BatchTrackingResult.success(item, results))
+                                .onErrorResume(e -> {
+                                    if (!(e instanceof IllegalArgumentException)) {
+                                        log.warn("Batch lookup of {} {} failed", item.getCarrier(), item.getTrackingNumber(), e);
+                                    }
+                                    return Mono.just(BatchTrackingResult.failure(item, e));
+                                }),
+                        batchProperties.getConcurrency())
+                .collectList();
+    }
+
+    /**
+     * Runs inside the single flight of {@code key}. The cache is checked again because a flight for the same key
+     * may have completed between the caller's cache miss and the start of this one.
+     * <p>
+     * Strategies return shipments whose events are already in memory (parsed, or fetched with the shipment); they
+     * are turned into responses here, once, before being cached and shared.
+     */
+    private Mono<List<TrackingInfoResponse>> lookup(TrackingKey key, Mono<List<TrackingInfo>> upstream) {
+        List<TrackingInfoResponse> cached = resultCache.get(key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        return upstream
+                .map(TrackingInfoResponse::fromAll)
+                .doOnNext(results -> resultCache.put(key, results));
+    }
+
+    private TrackingStrategy resolveStrategy(String carrier) {
+        if (carrier == null || carrier.isBlank()) {
+            throw new IllegalArgumentException("Carrier is required!");
+        }
+
         return strategies.stream()
                 .filter(s -> s.supports(carrier))
                 .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Unsupported carrier: " + carrier))
-                .track(request);
+                .orElseThrow(() -> new UnsupportedCarrierException(carrier));
     }
 
 }
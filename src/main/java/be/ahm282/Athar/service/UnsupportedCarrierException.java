@@ -0,0 +1,12 @@
+package be.ahm282.Athar.service;
+
+/**
+ * Thrown when no tracking strategy supports the requested carrier.
+ */
+public class UnsupportedCarrierException extends IllegalArgumentException {
+
+    public UnsupportedCarrierException(String carrier) {
+        super("Unsupported carrier: " + carrier);
+    }
+
+}
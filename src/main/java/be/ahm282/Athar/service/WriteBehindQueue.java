@@ -0,0 +1,143 @@
+package be.ahm282.Athar.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Bounded queue drained by a single writer thread. Every pass takes whatever accumulated while the previous write
+ * ran, up to {@code maxBatchSize} items, and hands it to the writer at once: under load, many submissions share one
+ * commit (group commit), while a lone submission is written right away.
+ * <p>
+ * When a group fails, its items are retried one by one so a single bad item does not take the others down.
+ * {@link #close()} stops accepting items and waits for the queue to drain.
+ */
+public class WriteBehindQueue<T> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindQueue.class);
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final String name;
+    private final BlockingQueue<T> queue;
+    private final int maxBatchSize;
+    private final Duration offerTimeout;
+    private final Consumer<List<T>> writer;
+    private final Counter failures;
+    private final Thread thread;
+
+    private volatile boolean closed;
+
+    public WriteBehindQueue(String name, int capacity, int maxBatchSize, Duration offerTimeout, Consumer<List<T>> writer, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.offerTimeout = offerTimeout;
+        this.writer = writer;
+
+        Gauge.builder("athar.write.behind.queue.depth", queue, BlockingQueue::size)
+                .description("Items waiting for the write-behind writer")
+                .tag("queue", name)
+                .register(meterRegistry);
+        this.failures = Counter.builder("athar.write.behind.failures")
+                .description("Items the write-behind writer failed to write")
+                .tag("queue", name)
+                .register(meterRegistry);
+
+        this.thread = new Thread(this::run, "write-behind-" + name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues {@code items}, waiting up to the offer timeout for room.
+     *
+     * @return the items that could not be queued, because the queue stayed full or is closed; the caller owns them
+     */
+    public List<T> offerAll(List<T> items) {
+        for (int i = 0; i < items.size(); i++) {
+            if (!offer(items.get(i))) {
+                return items.subList(i, items.size());
+            }
+        }
+
+        return List.of();
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean offer(T item) {
+        if (closed) {
+            return false;
+        }
+
+        try {
+            return queue.offer(item, offerTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void run() {
+        while (!closed || !queue.isEmpty()) {
+            T first;
+            try {
+                first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // Only close() ends the writer, and only once the queue is drained
+                continue;
+            }
+
+            if (first == null) {
+                continue;
+            }
+
+            List<T> batch = new ArrayList<>(Math.min(maxBatchSize, queue.size() + 1));
+            batch.add(first);
+            queue.drainTo(batch, maxBatchSize - 1);
+
+            write(batch);
+        }
+    }
+
+    private void write(List<T> batch) {
+        try {
+            writer.accept(batch);
+            return;
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                failures.increment();
+                log.error("Write-behind queue {} failed to write an item", name, e);
+                return;
+            }
+
+            log.warn("Write-behind queue {} failed to write a group of {} items, retrying them one by one", name, batch.size(), e);
+        }
+
+        batch.forEach(item -> write(List.of(item)));
+    }
+
+}
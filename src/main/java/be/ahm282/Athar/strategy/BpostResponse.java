@@ -0,0 +1,115 @@
+package be.ahm282.Athar.strategy;
+
+import be.ahm282.Athar.domain.EventFingerprint;
+import be.ahm282.Athar.domain.EventTime;
+import be.ahm282.Athar.domain.TrackingEvent;
+import be.ahm282.Athar.domain.TrackingInfo;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Typed view of a Bpost tracking response. Only the fields the application uses are mapped;
+ * everything else is skipped by the parser without being materialized.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record BpostResponse(List<Item> items) {
+
+    public List<TrackingInfo> toTrackingInfos() {
+        if (items == null) {
+            return List.of();
+        }
+
+        return items.stream()
+                .map(Item::toTrackingInfo)
+                .toList();
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Item(String itemCode, Address receiver, Address sender, List<Event> events) {
+
+        public TrackingInfo toTrackingInfo() {
+            TrackingInfo trackingInfo = new TrackingInfo();
+
+            // Basic info
+            trackingInfo.setTrackingNumber(orEmpty(itemCode));
+            trackingInfo.setCarrier("Bpost");
+
+            // Addresses
+            Address to = receiver != null ? receiver : Address.EMPTY;
+            trackingInfo.setReceiverName(orEmpty(to.name()));
+            trackingInfo.setDestinationStreet(orEmpty(to.street()));
+            trackingInfo.setDestinationMunicipality(orEmpty(to.municipality()));
+            trackingInfo.setDestinationPostcode(orEmpty(to.postcode()));
+            trackingInfo.setDestinationCountry(orEmpty(to.countryCode()));
+
+            Address from = sender != null ? sender : Address.EMPTY;
+            trackingInfo.setSenderName(orEmpty(from.name()));
+            trackingInfo.setSenderStreet(orEmpty(from.street()));
+            trackingInfo.setSenderMunicipality(orEmpty(from.municipality()));
+            trackingInfo.setSenderPostcode(orEmpty(from.postcode()));
+            trackingInfo.setSenderCountry(orEmpty(from.countryCode()));
+
+            // Events and status
+            if (events == null || events.isEmpty()) {
+                return trackingInfo;
+            }
+
+            for (Event event : events) {
+                trackingInfo.getEvents().add(event.toTrackingEvent(trackingInfo));
+            }
+
+            // Set status from the first (most recent) event, then list the events oldest first like the stored ones
+            trackingInfo.setStatus(trackingInfo.getEvents().get(0).getDescription());
+            trackingInfo.getEvents().sort(TrackingEvent.CHRONOLOGICAL);
+
+            return trackingInfo;
+        }
+
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Address(String name, String street, String municipality, String postcode, String countryCode) {
+
+        static final Address EMPTY = new Address(null, null, null, null, null);
+
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Event(String date, String time, Location location, Key key, boolean irregularity) {
+
+        public TrackingEvent toTrackingEvent(TrackingInfo trackingInfo) {
+            TrackingEvent event = new TrackingEvent();
+
+            event.setDate(orEmpty(date));
+            event.setTime(orEmpty(time));
+            event.setLocation(location != null ? orEmpty(location.locationName()) : "");
+            event.setDescription(key != null && key.en() != null ? orEmpty(key.en().description()) : "");
+            event.setIrregularity(irregularity);
+            event.setFingerprint(EventFingerprint.of(event.getDate(), event.getTime(), event.getDescription(), event.getLocation()));
+            event.setOccurredAt(EventTime.of(event.getDate(), event.getTime()));
+            event.setTrackingInfo(trackingInfo);
+
+            return event;
+        }
+
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Location(String locationName) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Key(@JsonProperty("EN") Translation en) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Translation(String description) {
+    }
+
+    private static String orEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+}
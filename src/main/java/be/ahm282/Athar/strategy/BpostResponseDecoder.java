@@ -0,0 +1,167 @@
+package be.ahm282.Athar.strategy;
+
+import be.ahm282.Athar.domain.TrackingInfo;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes Bpost tracking responses into {@link TrackingInfo} through the typed {@link BpostResponse} records.
+ * <p>
+ * The readers are built once from a mapper that skips unknown properties, and bind straight from the token stream:
+ * no JSON tree is ever built. The buffer variant goes one step further and feeds each {@link DataBuffer} to a
+ * non-blocking parser, releasing it as soon as its tokens are consumed; only the tokens of the item being read are
+ * buffered, so memory stays proportional to the largest item rather than to the response.
+ */
+public class BpostResponseDecoder {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final ObjectReader responseReader = MAPPER.readerFor(BpostResponse.class);
+    private final ObjectReader itemReader = MAPPER.readerFor(BpostResponse.Item.class);
+
+    public List<TrackingInfo> decode(String json) {
+        if (json == null || json.isBlank()) {
+            return new ArrayList<>();
+        }
+
+        try {
+            BpostResponse response = responseReader.readValue(json);
+            return response != null ? new ArrayList<>(response.toTrackingInfos()) : new ArrayList<>();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse tracking JSON", e);
+        }
+    }
+
+    public Mono<List<TrackingInfo>> decode(Flux<DataBuffer> body) {
+        return Mono.defer(() -> {
+            ItemTokenizer tokenizer = new ItemTokenizer();
+
+            return body
+                    .concatMapIterable(buffer -> {
+                        try {
+                            return tokenizer.feed(buffer);
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                        }
+                    })
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(tokenizer.endOfInput())))
+                    .collectList();
+        });
+    }
+
+    /**
+     * Walks the top-level tokens and turns every object of the root {@code items} array into a {@link TrackingInfo}.
+     * Everything outside that array is skipped without being buffered.
+     */
+    private final class ItemTokenizer {
+
+        private final JsonParser parser;
+        private final ByteBufferFeeder feeder;
+
+        private int depth;
+        private boolean itemsFieldPending;
+        private boolean inItems;
+        private TokenBuffer item;
+
+        private ItemTokenizer() {
+            try {
+                this.parser = MAPPER.getFactory().createNonBlockingByteBufferParser();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not create tracking JSON parser", e);
+            }
+            this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        private List<TrackingInfo> feed(DataBuffer buffer) {
+            List<TrackingInfo> decoded = new ArrayList<>();
+
+            try (DataBuffer.ByteBufferIterator chunks = buffer.readableByteBuffers()) {
+                while (chunks.hasNext()) {
+                    feeder.feedInput(chunks.next());
+                    drain(decoded);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to parse tracking JSON", e);
+            }
+
+            return decoded;
+        }
+
+        private List<TrackingInfo> endOfInput() {
+            List<TrackingInfo> decoded = new ArrayList<>();
+
+            try {
+                feeder.endOfInput();
+                drain(decoded);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to parse tracking JSON", e);
+            }
+
+            if (depth != 0) {
+                throw new RuntimeException("Failed to parse tracking JSON");
+            }
+
+            return decoded;
+        }
+
+        private void drain(List<TrackingInfo> decoded) throws IOException {
+            JsonToken token;
+
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                if (item != null) {
+                    item.copyCurrentEvent(parser);
+                }
+
+                if (token.isStructStart()) {
+                    onStructStart(token);
+                    depth++;
+                } else if (token.isStructEnd()) {
+                    depth--;
+                    onStructEnd(decoded);
+                } else if (token == JsonToken.FIELD_NAME && depth == 1) {
+                    itemsFieldPending = "items".equals(parser.currentName());
+                }
+            }
+        }
+
+        private void onStructStart(JsonToken token) throws IOException {
+            if (itemsFieldPending && depth == 1) {
+                inItems = token == JsonToken.START_ARRAY;
+                itemsFieldPending = false;
+            } else if (inItems && depth == 2 && token == JsonToken.START_OBJECT) {
+                item = new TokenBuffer(parser);
+                item.copyCurrentEvent(parser);
+            }
+        }
+
+        private void onStructEnd(List<TrackingInfo> decoded) throws IOException {
+            if (item != null && depth == 2) {
+                try (JsonParser itemParser = item.asParser()) {
+                    BpostResponse.Item parsed = itemReader.readValue(itemParser);
+                    decoded.add(parsed.toTrackingInfo());
+                }
+                item = null;
+            } else if (inItems && depth == 1) {
+                inItems = false;
+            }
+        }
+
+    }
+
+}
@@ -1,32 +1,62 @@
 package be.ahm282.Athar.strategy;
 
 import be.ahm282.Athar.client.BpostClient;
+import be.ahm282.Athar.client.UpstreamUnavailableException;
+import be.ahm282.Athar.config.TrackingProperties;
+import be.ahm282.Athar.domain.EventHistory;
 import be.ahm282.Athar.domain.TrackingEvent;
 import be.ahm282.Athar.domain.TrackingInfo;
 import be.ahm282.Athar.dto.TrackingRequest;
+import be.ahm282.Athar.repository.ShipmentArchiveRepository;
+import be.ahm282.Athar.repository.TrackingEventRepository;
 import be.ahm282.Athar.repository.TrackingInfoRepository;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import be.ahm282.Athar.service.WriteBehindQueue;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
-public class BpostTrackingStrategy implements TrackingStrategy {
+public class BpostTrackingStrategy implements TrackingStrategy, DisposableBean {
 
     private final BpostClient bpostClient;
     private final TrackingInfoRepository trackingInfoRepository;
-    private final ObjectMapper objectMapper;
-
-    public BpostTrackingStrategy(BpostClient bpostClient, TrackingInfoRepository trackingInfoRepository) {
+    private final TrackingEventRepository trackingEventRepository;
+    private final ShipmentArchiveRepository shipmentArchiveRepository;
+    private final TransactionOperations transactionOperations;
+    private final BpostResponseDecoder responseDecoder;
+    private final boolean compressedHistory;
+    private final WriteBehindQueue<TrackingInfo> writeBehind;
+
+    public BpostTrackingStrategy(BpostClient bpostClient, TrackingInfoRepository trackingInfoRepository, TrackingEventRepository trackingEventRepository,
+                                 ShipmentArchiveRepository shipmentArchiveRepository, TransactionOperations transactionOperations, TrackingProperties trackingProperties, MeterRegistry meterRegistry) {
         this.bpostClient = bpostClient;
         this.trackingInfoRepository = trackingInfoRepository;
-        this.objectMapper = new ObjectMapper();
+        this.trackingEventRepository = trackingEventRepository;
+        this.shipmentArchiveRepository = shipmentArchiveRepository;
+        this.transactionOperations = transactionOperations;
+        this.responseDecoder = new BpostResponseDecoder();
+        this.compressedHistory = trackingProperties.getEventStorage() == TrackingProperties.EventStorage.COMPRESSED;
+
+        TrackingProperties.WriteBehind writeBehindConfig = trackingProperties.getWriteBehind();
+        this.writeBehind = writeBehindConfig.isEnabled()
+                ? new WriteBehindQueue<>("bpost", writeBehindConfig.getQueueCapacity(), writeBehindConfig.getMaxBatchSize(),
+                        writeBehindConfig.getOfferTimeout(), this::writeGroup, meterRegistry)
+                : null;
     }
 
     public final boolean supports(String carrier) {
@@ -45,150 +75,327 @@ public class BpostTrackingStrategy implements TrackingStrategy {
         String json = this.bpostClient.fetchTrackingData(request.getTrackingNumber(), request.getPostcode());
         List<TrackingInfo> parsedInfos = parseTrackingResponse(json);
 
-        return parsedInfos.stream()
-                .map(this::saveOrUpdateTrackingInfo)
-                .collect(Collectors.toList());
+        return persist(parsedInfos);
     }
 
-    private TrackingInfo saveOrUpdateTrackingInfo(TrackingInfo parsedInfo) {
-        Optional<TrackingInfo> existingOptional = trackingInfoRepository.findByTrackingNumber(parsedInfo.getTrackingNumber());
+    /**
+     * Fetches conditionally: when Bpost answers 304 Not Modified, or sends the same body again without ETag or
+     * Last-Modified, parsing and persisting are skipped and the stored shipment is returned instead. A same body under
+     * validators Bpost did not honour is still parsed, and only its persist is skipped. The stored shipment is also
+     * served when Bpost is not being called because its circuit breaker is open or its rate limit is exhausted.
+     */
+    @Override
+    public final Mono<List<TrackingInfo>> trackAsync(TrackingRequest request) {
+        return Mono.defer(() -> {
+                    request.validate(this.requiresPostcode());
+                    return save(this.bpostClient.fetchTrackingDataIfModified(request.getTrackingNumber(), request.getPostcode(), responseDecoder::decode))
+                            .doOnError(e -> !(e instanceof UpstreamUnavailableException), e -> this.bpostClient.forgetValidators(request.getTrackingNumber(), request.getPostcode()))
+                            .switchIfEmpty(Mono.defer(() -> loadUnchanged(request)))
+                            .onErrorResume(UpstreamUnavailableException.class, e -> loadStoredOrFail(request, e));
+                })
+                .defaultIfEmpty(new ArrayList<>());
+    }
 
-        if (existingOptional.isEmpty()) {
-            return trackingInfoRepository.save(parsedInfo); // Save new shipment
-        }
+    private Mono<List<TrackingInfo>> save(Mono<List<TrackingInfo>> parsedInfos) {
+        return parsedInfos
+                // JPA is blocking: leave the Netty event loop before touching the repository
+                .publishOn(Schedulers.boundedElastic())
+                .map(this::persist);
+    }
 
-        TrackingInfo existingInfo = existingOptional.get(); // Shipment exists. retrieve it
+    private Mono<List<TrackingInfo>> loadUnchanged(TrackingRequest request) {
+        return Mono.fromCallable(() -> findStored(request.getTrackingNumber()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(stored -> {
+                    if (!stored.isEmpty()) {
+                        return Mono.just(stored);
+                    }
+
+                    // The validators outlived the stored shipment: fetch the full payload again
+                    this.bpostClient.forgetValidators(request.getTrackingNumber(), request.getPostcode());
+                    return save(responseDecoder.decode(this.bpostClient.fetchTrackingDataStream(request.getTrackingNumber(), request.getPostcode())));
+                });
+    }
 
-        boolean changed = updateExistingTrackingInfo(existingInfo, parsedInfo); // Check for changes
+    private Mono<List<TrackingInfo>> loadStoredOrFail(TrackingRequest request, UpstreamUnavailableException cause) {
+        return Mono.fromCallable(() -> findStored(request.getTrackingNumber()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(stored -> stored.isEmpty() ? Mono.error(cause) : Mono.just(stored));
+    }
 
-        // Only save if changes occurred; otherwise, return as-is
-        return changed ? trackingInfoRepository.save(existingInfo) : existingInfo;
+    /**
+     * Served by the second-level cache for shipments read before; misses run in the repository's own read-only
+     * transaction, which the prod profile routes to the SQLite reader pool. Shipments that are no longer in the hot
+     * tables are looked up in the archive.
+     */
+    private List<TrackingInfo> findStored(String trackingNumber) {
+        return trackingInfoRepository.findCachedByTrackingNumber(trackingNumber)
+                .or(() -> shipmentArchiveRepository.findByTrackingNumber(trackingNumber))
+                .map(this::withHistoryEvents)
+                .map(List::of)
+                .orElseGet(List::of);
     }
 
-    private boolean updateExistingTrackingInfo(TrackingInfo existingShipment, TrackingInfo parsed) {
-        boolean changed = false;
+    /**
+     * With the compressed event storage, replaces the event rows by the decoded history of shipments that have one,
+     * sorted like the rows: the history is in the order the events were appended.
+     */
+    private TrackingInfo withHistoryEvents(TrackingInfo info) {
+        if (compressedHistory && info.getEventHistory() != null) {
+            List<TrackingEvent> events = EventHistory.decode(info.getEventHistory());
+            events.sort(TrackingEvent.CHRONOLOGICAL);
+            events.forEach(event -> event.setTrackingInfo(info));
+            info.setEvents(events);
+        }
+        return info;
+    }
 
-        List<TrackingEvent> newEvents = getNewEvents(parsed.getEvents(), existingShipment.getEvents());
+    @Override
+    public void destroy() {
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+    }
 
-        if (!newEvents.isEmpty()) {
-            addNewEventsToExisting(existingShipment, newEvents);
-            changed = true;
+    /**
+     * In write-behind mode, hands the shipments to the background writer and returns them as parsed: they are not
+     * persisted yet and carry no database ids. Shipments the full queue does not take are written right away.
+     * <p>
+     * The writer gets detached copies: saving changes the shipments it writes (stored identity, events pointed at the
+     * stored shipment, collections replaced by Hibernate), which the caller must not see while it reads the originals.
+     */
+    private List<TrackingInfo> persist(List<TrackingInfo> parsedInfos) {
+        if (writeBehind == null) {
+            return saveOrUpdateAll(parsedInfos);
         }
 
-        if (!parsed.getStatus().equals(existingShipment.getStatus())) {
-            existingShipment.setStatus(parsed.getStatus());
-            changed = true;
+        List<TrackingInfo> copies = parsedInfos.stream()
+                .map(TrackingInfo::detachedCopy)
+                .toList();
+        List<TrackingInfo> rejected = writeBehind.offerAll(copies);
+        if (!rejected.isEmpty()) {
+            saveOrUpdateAll(rejected);
         }
 
-        return changed;
+        return parsedInfos;
     }
 
-    private void addNewEventsToExisting(TrackingInfo existingShipment, List<TrackingEvent> newEvents) {
-        newEvents.forEach(event -> {
-            event.setTrackingInfo(existingShipment);
-            existingShipment.getEvents().add(event);
-        });
+    /**
+     * Writes copies of the queued shipments, fresh for every attempt: when the queue retries the items of a failed
+     * group one by one, the shipments saved before the rollback must be inserted again, not merged into rows that do
+     * not exist.
+     */
+    private void writeGroup(List<TrackingInfo> queuedInfos) {
+        try {
+            saveOrUpdateAll(queuedInfos.stream().map(TrackingInfo::unsavedCopy).toList());
+        } catch (RuntimeException e) {
+            // Bpost would answer 304 for data we never stored: make the next lookup fetch the full payload. The queued
+            // shipment no longer knows the postcode it was looked up with
+            queuedInfos.forEach(info -> this.bpostClient.forgetValidators(info.getTrackingNumber()));
+            throw e;
+        }
     }
 
-    private List<TrackingInfo> parseTrackingResponse(String json) {
-        try {
-            JsonNode root = objectMapper.readTree(json);
-            JsonNode items = root.get("items");
+    /**
+     * Persists inside a transaction: the reactive path runs on a worker thread without an open session.
+     * <p>
+     * Every affected shipment is loaded in one query, without its events, and the fingerprints of their stored events
+     * in a second one: only events that are not stored yet are inserted, so a refresh that brings nothing new writes
+     * no event rows, allocates no ids and leaves the cached event collections alone. The store's unique fingerprint
+     * key still makes the insert of an already known event a no-op (see {@link TrackingEvent}). All writes happen in
+     * the same transaction.
+     * <p>
+     * For shipments that already existed, the parsed shipment is returned with the stored identity: Bpost reports the
+     * full history on every call, so it holds the same events as the store without loading them.
+     */
+    private List<TrackingInfo> saveOrUpdateAll(List<TrackingInfo> parsedInfos) {
+        if (parsedInfos.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (compressedHistory) {
+            return saveOrUpdateAllCompressed(parsedInfos);
+        }
 
-            if (items == null || !items.isArray()) {
-                return new ArrayList<>();
+        return transactionOperations.execute(status -> {
+            Map<String, TrackingInfo> stored = findStoredShipments(parsedInfos);
+            Map<UUID, FingerprintSet> storedFingerprints = findStoredFingerprints(stored.values());
+            List<TrackingInfo> results = new ArrayList<>(parsedInfos.size());
+            Set<TrackingInfo> shipmentsToWrite = new LinkedHashSet<>();
+            List<TrackingEvent> eventsToInsert = new ArrayList<>();
+            Map<TrackingInfo, TrackingInfo> storedByParsed = new IdentityHashMap<>();
+            // Fingerprints stored or already headed for each shipment, so a shipment repeated in the group sends its
+            // events once
+            Map<TrackingInfo, FingerprintSet> pendingFingerprints = new IdentityHashMap<>();
+
+            for (TrackingInfo parsedInfo : parsedInfos) {
+                TrackingInfo existingInfo = stored.get(parsedInfo.getTrackingNumber());
+
+                if (existingInfo == null) {
+                    // New shipment, inserted with its events; a later item with the same tracking number is merged into it
+                    stored.put(parsedInfo.getTrackingNumber(), parsedInfo);
+                    shipmentsToWrite.add(parsedInfo);
+                    pendingFingerprints(pendingFingerprints, parsedInfo, parsedInfo.getEvents().size())
+                            .addAll(parsedInfo.getEvents());
+                } else {
+                    if (updateExistingTrackingInfo(existingInfo, parsedInfo)) {
+                        shipmentsToWrite.add(existingInfo);
+                    }
+                    FingerprintSet known = pendingFingerprints.computeIfAbsent(existingInfo,
+                            key -> storedFingerprints.getOrDefault(key.getId(), new FingerprintSet(parsedInfo.getEvents().size())));
+                    attachEventsToExisting(existingInfo, parsedInfo.getEvents(), known, eventsToInsert);
+                    storedByParsed.put(parsedInfo, existingInfo);
+                }
+                results.add(parsedInfo);
             }
 
-            List<TrackingInfo> results = new ArrayList<>();
-
-            for (JsonNode item : items) {
-                TrackingInfo trackingInfo = parseTrackingItem(item);
-                results.add(trackingInfo);
+            // Shipments first: the events of a repeated tracking number reference the shipment inserted here
+            Map<TrackingInfo, TrackingInfo> savedByWritten = saveShipments(shipmentsToWrite);
+            if (!eventsToInsert.isEmpty()) {
+                trackingEventRepository.insertAll(eventsToInsert);
             }
 
+            results.replaceAll(info -> {
+                TrackingInfo existingInfo = storedByParsed.get(info);
+                if (existingInfo != null) {
+                    return adoptStoredIdentity(info, savedByWritten.getOrDefault(existingInfo, existingInfo));
+                }
+                return savedByWritten.getOrDefault(info, info);
+            });
+
             return results;
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to parse tracking JSON", e);
-        }
+        });
     }
 
-    private TrackingInfo parseTrackingItem(JsonNode item) {
-        TrackingInfo trackingInfo = new TrackingInfo();
-
-        // Basic info
-        trackingInfo.setTrackingNumber(item.path("itemCode").asText());
-        trackingInfo.setCarrier("Bpost");
+    /**
+     * The compressed event storage: each shipment is one row, its events appended to its {@link EventHistory}.
+     * Nothing is written for a shipment whose status and events did not change.
+     * <p>
+     * A new shipment is written as a copy without events, so they are never cascaded; the parsed shipments are
+     * returned with their events, taking the stored identity like in the row storage.
+     */
+    private List<TrackingInfo> saveOrUpdateAllCompressed(List<TrackingInfo> parsedInfos) {
+        return transactionOperations.execute(status -> {
+            Map<String, TrackingInfo> stored = findStoredShipments(parsedInfos);
+            List<TrackingInfo> results = new ArrayList<>(parsedInfos.size());
+            Set<TrackingInfo> shipmentsToWrite = new LinkedHashSet<>();
+            Map<TrackingInfo, TrackingInfo> storedByParsed = new IdentityHashMap<>();
+
+            for (TrackingInfo parsedInfo : parsedInfos) {
+                TrackingInfo existingInfo = stored.get(parsedInfo.getTrackingNumber());
+
+                if (existingInfo == null) {
+                    TrackingInfo newInfo = parsedInfo.copyWithoutEvents();
+                    newInfo.setEventHistory(EventHistory.append(null, parsedInfo.getEvents()));
+                    stored.put(parsedInfo.getTrackingNumber(), newInfo);
+                    shipmentsToWrite.add(newInfo);
+                    storedByParsed.put(parsedInfo, newInfo);
+                } else {
+                    boolean changed = updateExistingTrackingInfo(existingInfo, parsedInfo);
+                    byte[] history = EventHistory.append(existingInfo.getEventHistory(), parsedInfo.getEvents());
+                    if (history != existingInfo.getEventHistory()) {
+                        existingInfo.setEventHistory(history);
+                        changed = true;
+                    }
+                    if (changed) {
+                        shipmentsToWrite.add(existingInfo);
+                    }
+                    storedByParsed.put(parsedInfo, existingInfo);
+                }
+                results.add(parsedInfo);
+            }
 
-        // Parse addresses
-        parseReceiverInfo(item.path("receiver"), trackingInfo);
-        parseSenderInfo(item.path("sender"), trackingInfo);
+            Map<TrackingInfo, TrackingInfo> savedByWritten = saveShipments(shipmentsToWrite);
 
-        // Parse events and set status
-        parseEventsAndStatus(item.path("events"), trackingInfo);
+            results.replaceAll(info -> {
+                TrackingInfo storedInfo = storedByParsed.get(info);
+                return adoptStoredIdentity(info, savedByWritten.getOrDefault(storedInfo, storedInfo));
+            });
 
-        return trackingInfo;
+            return results;
+        });
     }
 
-    private void parseReceiverInfo(JsonNode receiver, TrackingInfo trackingInfo) {
-        trackingInfo.setReceiverName(receiver.path("name").asText());
-        trackingInfo.setDestinationStreet(receiver.path("street").asText());
-        trackingInfo.setDestinationMunicipality(receiver.path("municipality").asText());
-        trackingInfo.setDestinationPostcode(receiver.path("postcode").asText());
-        trackingInfo.setDestinationCountry(receiver.path("countryCode").asText());
+    private Map<String, TrackingInfo> findStoredShipments(List<TrackingInfo> parsedInfos) {
+        Set<String> trackingNumbers = parsedInfos.stream()
+                .map(TrackingInfo::getTrackingNumber)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<String, TrackingInfo> stored = new HashMap<>();
+        if (!trackingNumbers.isEmpty()) {
+            trackingInfoRepository.findAllByTrackingNumberIn(trackingNumbers)
+                    .forEach(info -> stored.putIfAbsent(info.getTrackingNumber(), info));
+        }
+
+        return stored;
     }
 
-    private void parseSenderInfo(JsonNode sender, TrackingInfo trackingInfo) {
-        trackingInfo.setSenderName(sender.path("name").asText());
-        trackingInfo.setSenderStreet(sender.path("street").asText());
-        trackingInfo.setSenderMunicipality(sender.path("municipality").asText());
-        trackingInfo.setSenderPostcode(sender.path("postcode").asText());
-        trackingInfo.setSenderCountry(sender.path("countryCode").asText());
+    private Map<UUID, FingerprintSet> findStoredFingerprints(Collection<TrackingInfo> storedShipments) {
+        Set<UUID> ids = storedShipments.stream()
+                .map(TrackingInfo::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<UUID, FingerprintSet> fingerprints = new HashMap<>();
+        if (!ids.isEmpty()) {
+            trackingEventRepository.findFingerprintsByTrackingInfoIdIn(ids)
+                    .forEach(event -> fingerprints.computeIfAbsent(event.getTrackingInfoId(), id -> new FingerprintSet(16))
+                            .add(event.getFingerprint()));
+        }
+
+        return fingerprints;
     }
 
-    private void parseEventsAndStatus(JsonNode events, TrackingInfo trackingInfo) {
-        if (!events.isArray() || events.isEmpty()) {
-            return;
+    private Map<TrackingInfo, TrackingInfo> saveShipments(Set<TrackingInfo> shipments) {
+        Map<TrackingInfo, TrackingInfo> savedByWritten = new IdentityHashMap<>();
+        if (shipments.isEmpty()) {
+            return savedByWritten;
         }
 
-        for (JsonNode eventNode : events) {
-            TrackingEvent event = parseTrackingEvent(eventNode, trackingInfo);
-            trackingInfo.getEvents().add(event);
+        List<TrackingInfo> written = new ArrayList<>(shipments);
+        List<TrackingInfo> saved = trackingInfoRepository.saveAll(written);
+        for (int i = 0; i < written.size(); i++) {
+            savedByWritten.put(written.get(i), saved.get(i));
         }
 
-        // Set status from the first (most recent) event
-        String latestStatus = events.path(0)
-                .path("key")
-                .path("EN")
-                .path("description")
-                .asText();
-        trackingInfo.setStatus(latestStatus);
+        return savedByWritten;
     }
 
-    private TrackingEvent parseTrackingEvent(JsonNode eventNode, TrackingInfo trackingInfo) {
-        TrackingEvent event = new TrackingEvent();
+    private boolean updateExistingTrackingInfo(TrackingInfo existingShipment, TrackingInfo parsed) {
+        if (parsed.getStatus() == null || parsed.getStatus().equals(existingShipment.getStatus())) {
+            return false;
+        }
 
-        event.setDate(eventNode.path("date").asText());
-        event.setTime(eventNode.path("time").asText());
-        event.setLocation(eventNode.path("location").path("locationName").asText());
-        event.setDescription(eventNode.path("key").path("EN").path("description").asText());
-        event.setIrregularity(eventNode.path("irregularity").asBoolean());
-        event.setTrackingInfo(trackingInfo);
+        existingShipment.setStatus(parsed.getStatus());
+        return true;
+    }
 
-        return event;
+    /**
+     * Points the events at the stored shipment without touching its (unloaded) event collection.
+     * Events whose fingerprint is already stored or pending for this shipment are left out.
+     */
+    private void attachEventsToExisting(TrackingInfo existingShipment, List<TrackingEvent> events, FingerprintSet pending, List<TrackingEvent> eventsToInsert) {
+        events.forEach(event -> {
+            event.setTrackingInfo(existingShipment);
+            if (pending.add(event.getFingerprint())) {
+                eventsToInsert.add(event);
+            }
+        });
     }
 
-    private List<TrackingEvent> getNewEvents(List<TrackingEvent> incoming, List<TrackingEvent> existing) {
-        Set<String> existingKeys = existing.stream()
-                .map(this::createEventKey)
-                .collect(Collectors.toSet());
+    private static FingerprintSet pendingFingerprints(Map<TrackingInfo, FingerprintSet> pendingFingerprints, TrackingInfo shipment, int expectedSize) {
+        return pendingFingerprints.computeIfAbsent(shipment, key -> new FingerprintSet(expectedSize));
+    }
 
-        return incoming.stream()
-                .filter(e -> !existingKeys.contains(createEventKey(e)))
-                .toList();
+    private static TrackingInfo adoptStoredIdentity(TrackingInfo parsed, TrackingInfo stored) {
+        parsed.setId(stored.getId());
+        parsed.setCreatedDate(stored.getCreatedDate());
+        parsed.setLastModifiedDate(stored.getLastModifiedDate());
+        return parsed;
     }
 
-    private String createEventKey(TrackingEvent event) {
-        return event.getDate() + "|" + event.getTime() + "|" + event.getDescription();
+    private List<TrackingInfo> parseTrackingResponse(String json) {
+        return responseDecoder.decode(json);
     }
 
 }
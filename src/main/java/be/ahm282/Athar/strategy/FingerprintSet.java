@@ -0,0 +1,80 @@
+package be.ahm282.Athar.strategy;
+
+import be.ahm282.Athar.domain.TrackingEvent;
+
+import java.util.List;
+
+/**
+ * Open-addressing set of event fingerprints on a primitive {@code long[]}: no boxing and no per-event allocation.
+ * Zero is the empty-slot marker and is tracked separately.
+ */
+final class FingerprintSet {
+
+    private long[] slots;
+    private int size;
+    private boolean containsZero;
+
+    FingerprintSet(int expectedSize) {
+        slots = new long[tableSizeFor(expectedSize)];
+    }
+
+    /**
+     * @return {@code true} when the fingerprint was not in the set yet
+     */
+    boolean add(long fingerprint) {
+        if (fingerprint == 0) {
+            boolean added = !containsZero;
+            containsZero = true;
+            return added;
+        }
+
+        if ((size + 1) * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+
+        if (!insert(slots, fingerprint)) {
+            return false;
+        }
+
+        size++;
+        return true;
+    }
+
+    void addAll(List<TrackingEvent> events) {
+        events.forEach(event -> add(event.getFingerprint()));
+    }
+
+    private static boolean insert(long[] table, long fingerprint) {
+        int mask = table.length - 1;
+        // Fingerprints are already well mixed, so their low bits index the table directly
+        int index = (int) fingerprint & mask;
+
+        while (table[index] != 0) {
+            if (table[index] == fingerprint) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+
+        table[index] = fingerprint;
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        long[] table = new long[capacity];
+
+        for (long fingerprint : slots) {
+            if (fingerprint != 0) {
+                insert(table, fingerprint);
+            }
+        }
+
+        slots = table;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        return Math.min(capacity, 1 << 30);
+    }
+
+}
@@ -2,6 +2,8 @@ package be.ahm282.Athar.strategy;
 
 import be.ahm282.Athar.domain.TrackingInfo;
 import be.ahm282.Athar.dto.TrackingRequest;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
 
@@ -15,4 +17,15 @@ public interface TrackingStrategy {
 
     List<TrackingInfo> track(TrackingRequest request);
 
+    /**
+     * Reactive variant of {@link #track(TrackingRequest)}.
+     * <p>
+     * The default implementation only offloads the blocking call to the bounded elastic scheduler;
+     * strategies backed by a reactive client should override it so no thread waits on the upstream.
+     */
+    default Mono<List<TrackingInfo>> trackAsync(TrackingRequest request) {
+        return Mono.fromCallable(() -> track(request))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
 }
@@ -0,0 +1,46 @@
+-- Schema as previously generated by Hibernate (ddl-auto=update)
+
+CREATE TABLE IF NOT EXISTS tracking_info (
+    id blob not null,
+    carrier varchar(255),
+    created_date timestamp,
+    destination_country varchar(255),
+    destination_municipality varchar(255),
+    destination_postcode varchar(255),
+    destination_street varchar(255),
+    last_modified_date timestamp,
+    receiver_name varchar(255),
+    sender_country varchar(255),
+    sender_municipality varchar(255),
+    sender_name varchar(255),
+    sender_postcode varchar(255),
+    sender_street varchar(255),
+    status varchar(255),
+    tracking_number varchar(255),
+    primary key (id)
+);
+
+CREATE TABLE IF NOT EXISTS tracking_event (
+    id integer,
+    created_date timestamp,
+    date varchar(255),
+    description varchar(255),
+    irregularity boolean not null,
+    last_modified_date timestamp,
+    location varchar(255),
+    time varchar(255),
+    tracking_info_id blob,
+    primary key (id)
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    id integer,
+    created_at timestamp,
+    email varchar(255) not null,
+    first_name varchar(255),
+    is_active boolean,
+    last_name varchar(255),
+    updated_at timestamp,
+    username varchar(255) not null unique,
+    primary key (id)
+);
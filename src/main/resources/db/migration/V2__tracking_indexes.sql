@@ -0,0 +1,30 @@
+-- Shipments stored twice by concurrent inserts: keep the oldest and move the events of the others onto it
+CREATE TEMP TABLE tracking_info_duplicate AS
+SELECT t.id AS duplicate_id,
+       (SELECT k.id
+        FROM tracking_info k
+        WHERE k.tracking_number = t.tracking_number
+        ORDER BY k.created_date, k.rowid
+        LIMIT 1) AS keep_id
+FROM tracking_info t
+WHERE t.tracking_number IS NOT NULL;
+
+DELETE FROM tracking_info_duplicate WHERE duplicate_id = keep_id;
+
+UPDATE tracking_event
+SET tracking_info_id = (SELECT d.keep_id FROM tracking_info_duplicate d WHERE d.duplicate_id = tracking_event.tracking_info_id)
+WHERE tracking_info_id IN (SELECT duplicate_id FROM tracking_info_duplicate);
+
+DELETE FROM tracking_info WHERE id IN (SELECT duplicate_id FROM tracking_info_duplicate);
+
+DROP TABLE tracking_info_duplicate;
+
+-- Events duplicated by the merge above, or by earlier concurrent updates of the same shipment
+DELETE FROM tracking_event
+WHERE id NOT IN (SELECT MIN(id) FROM tracking_event GROUP BY tracking_info_id, date, time, description);
+
+-- Every lookup goes through the tracking number
+CREATE UNIQUE INDEX uk_tracking_info_tracking_number ON tracking_info (tracking_number);
+
+-- Natural key of an event within its shipment; the leading column also serves the events-by-shipment lookups
+CREATE UNIQUE INDEX uk_tracking_event_natural_key ON tracking_event (tracking_info_id, date, time, description);
@@ -0,0 +1,13 @@
+-- Pooled id allocation for TrackingEvent and User, replacing identity columns so their inserts can be batched.
+-- Seeded a full allocation block above the current maximum, so no handed-out id can collide with an existing row.
+CREATE TABLE id_generator (
+    name varchar(255) not null,
+    next_value bigint,
+    primary key (name)
+);
+
+INSERT INTO id_generator (name, next_value)
+SELECT 'tracking_event', COALESCE(MAX(id), 0) + 51 FROM tracking_event;
+
+INSERT INTO id_generator (name, next_value)
+SELECT 'users', COALESCE(MAX(id), 0) + 51 FROM users;
@@ -0,0 +1,41 @@
+-- Cold storage for shipments in a terminal status that were not refreshed for a while (see ShipmentArchiver).
+-- Same columns as the hot tables, so rows move with INSERT ... SELECT.
+
+CREATE TABLE tracking_info_archive (
+    id blob not null,
+    carrier varchar(255),
+    created_date timestamp,
+    destination_country varchar(255),
+    destination_municipality varchar(255),
+    destination_postcode varchar(255),
+    destination_street varchar(255),
+    last_modified_date timestamp,
+    receiver_name varchar(255),
+    sender_country varchar(255),
+    sender_municipality varchar(255),
+    sender_name varchar(255),
+    sender_postcode varchar(255),
+    sender_street varchar(255),
+    status varchar(255),
+    tracking_number varchar(255),
+    archived_date timestamp,
+    primary key (id)
+);
+
+CREATE UNIQUE INDEX uk_tracking_info_archive_tracking_number ON tracking_info_archive (tracking_number);
+
+CREATE TABLE tracking_event_archive (
+    id integer,
+    created_date timestamp,
+    date varchar(255),
+    description varchar(255),
+    fingerprint bigint not null default 0,
+    irregularity boolean not null,
+    last_modified_date timestamp,
+    location varchar(255),
+    time varchar(255),
+    tracking_info_id blob,
+    primary key (id)
+);
+
+CREATE INDEX ix_tracking_event_archive_tracking_info_id ON tracking_event_archive (tracking_info_id);
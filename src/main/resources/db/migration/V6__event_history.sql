@@ -0,0 +1,3 @@
+-- Compressed event history of a shipment, used instead of tracking_event rows when athar.tracking.event-storage=compressed
+ALTER TABLE tracking_info ADD COLUMN event_history blob;
+ALTER TABLE tracking_info_archive ADD COLUMN event_history blob;
@@ -0,0 +1,58 @@
+-- The few hundred distinct carriers, statuses, event descriptions and event locations, stored once and referenced by
+-- code from the hot and archive tables (see StringDictionary)
+
+CREATE TABLE string_dictionary (
+    code integer not null,
+    kind varchar(32) not null,
+    value varchar(255) not null,
+    primary key (code)
+);
+
+CREATE UNIQUE INDEX uk_string_dictionary_kind_value ON string_dictionary (kind, value);
+
+INSERT INTO string_dictionary (kind, value)
+SELECT 'carrier', carrier FROM tracking_info WHERE carrier IS NOT NULL
+UNION SELECT 'carrier', carrier FROM tracking_info_archive WHERE carrier IS NOT NULL
+UNION SELECT 'status', status FROM tracking_info WHERE status IS NOT NULL
+UNION SELECT 'status', status FROM tracking_info_archive WHERE status IS NOT NULL
+UNION SELECT 'event_description', description FROM tracking_event WHERE description IS NOT NULL
+UNION SELECT 'event_description', description FROM tracking_event_archive WHERE description IS NOT NULL
+UNION SELECT 'event_location', location FROM tracking_event WHERE location IS NOT NULL
+UNION SELECT 'event_location', location FROM tracking_event_archive WHERE location IS NOT NULL;
+
+-- Replace each string column by its code; none of them is indexed, so they can be dropped in place
+
+ALTER TABLE tracking_info ADD COLUMN carrier_code integer;
+ALTER TABLE tracking_info ADD COLUMN status_code integer;
+UPDATE tracking_info
+SET carrier_code = (SELECT d.code FROM string_dictionary d WHERE d.kind = 'carrier' AND d.value = tracking_info.carrier),
+    status_code = (SELECT d.code FROM string_dictionary d WHERE d.kind = 'status' AND d.value = tracking_info.status);
+ALTER TABLE tracking_info DROP COLUMN carrier;
+ALTER TABLE tracking_info DROP COLUMN status;
+
+ALTER TABLE tracking_info_archive ADD COLUMN carrier_code integer;
+ALTER TABLE tracking_info_archive ADD COLUMN status_code integer;
+UPDATE tracking_info_archive
+SET carrier_code = (SELECT d.code FROM string_dictionary d WHERE d.kind = 'carrier' AND d.value = tracking_info_archive.carrier),
+    status_code = (SELECT d.code FROM string_dictionary d WHERE d.kind = 'status' AND d.value = tracking_info_archive.status);
+ALTER TABLE tracking_info_archive DROP COLUMN carrier;
+ALTER TABLE tracking_info_archive DROP COLUMN status;
+
+ALTER TABLE tracking_event ADD COLUMN description_code integer;
+ALTER TABLE tracking_event ADD COLUMN location_code integer;
+UPDATE tracking_event
+SET description_code = (SELECT d.code FROM string_dictionary d WHERE d.kind = 'event_description' AND d.value = tracking_event.description),
+    location_code = (SELECT d.code FROM string_dictionary d WHERE d.kind = 'event_location' AND d.value = tracking_event.location);
+ALTER TABLE tracking_event DROP COLUMN description;
+ALTER TABLE tracking_event DROP COLUMN location;
+
+ALTER TABLE tracking_event_archive ADD COLUMN description_code integer;
+ALTER TABLE tracking_event_archive ADD COLUMN location_code integer;
+UPDATE tracking_event_archive
+SET description_code = (SELECT d.code FROM string_dictionary d WHERE d.kind = 'event_description' AND d.value = tracking_event_archive.description),
+    location_code = (SELECT d.code FROM string_dictionary d WHERE d.kind = 'event_location' AND d.value = tracking_event_archive.location);
+ALTER TABLE tracking_event_archive DROP COLUMN description;
+ALTER TABLE tracking_event_archive DROP COLUMN location;
+
+-- Status filters of the shipment listing, in its tracking number order
+CREATE INDEX ix_tracking_info_status_code ON tracking_info (status_code, tracking_number);
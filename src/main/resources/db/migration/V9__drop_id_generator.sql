@@ -0,0 +1,3 @@
+-- Event and user ids are now counted up from the largest stored id (see TrackingEvent): the pooled allocation table
+-- is no longer read
+DROP TABLE id_generator;
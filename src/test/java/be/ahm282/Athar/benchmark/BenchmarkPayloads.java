@@ -0,0 +1,64 @@
+package be.ahm282.Athar.benchmark;
+
+/**
+ * Synthetic Bpost responses shaped like the real ones, including the translations and metadata we do not map.
+ */
+final class BenchmarkPayloads {
+
+    private BenchmarkPayloads() {
+    }
+
+    static String bpostResponse(int eventCount) {
+        StringBuilder events = new StringBuilder();
+
+        for (int i = 0; i < eventCount; i++) {
+            if (i > 0) {
+                events.append(',');
+            }
+            events.append("""
+                    {
+                        "date": "2023-12-%02d",
+                        "time": "%02d:%02d:00",
+                        "location": { "locationName": "Sorting centre %d", "locationCode": "BE%04d" },
+                        "key": {
+                            "EN": { "description": "Item processed in sorting centre %d" },
+                            "NL": { "description": "Zending verwerkt in sorteercentrum %d" },
+                            "FR": { "description": "Envoi traité au centre de tri %d" },
+                            "DE": { "description": "Sendung im Sortierzentrum %d bearbeitet" }
+                        },
+                        "irregularity": %s,
+                        "serviceId": 42,
+                        "metadata": { "scanner": "SC-%d", "tags": ["a", "b", "c"] }
+                    }
+                    """.formatted(1 + i % 28, i % 24, i % 60, i % 7, i, i % 7, i % 7, i % 7, i % 7, i % 5 == 0, i));
+        }
+
+        return """
+                {
+                    "items": [
+                        {
+                            "itemCode": "00164300796602406833",
+                            "productCategory": "parcel",
+                            "receiver": {
+                                "name": "AHMED MAHGOUB",
+                                "street": "LINDENLAAN 15",
+                                "municipality": "BEERSE",
+                                "postcode": "2340",
+                                "countryCode": "BE"
+                            },
+                            "sender": {
+                                "name": "DHL CONNECT",
+                                "street": "BEDRIJVENZONE MACHELEN CARGO 829C",
+                                "municipality": "Office Exchange Brussels Airport Remailing",
+                                "postcode": "1934",
+                                "countryCode": "BE"
+                            },
+                            "weightInGrams": 1250,
+                            "events": [%s]
+                        }
+                    ]
+                }
+                """.formatted(events);
+    }
+
+}
@@ -0,0 +1,118 @@
+package be.ahm282.Athar.benchmark;
+
+import be.ahm282.Athar.domain.TrackingEvent;
+import be.ahm282.Athar.domain.TrackingInfo;
+import be.ahm282.Athar.strategy.BpostResponseDecoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former {@code JsonNode} tree walk with the typed {@link BpostResponseDecoder} paths on a Bpost-shaped
+ * payload (including the fields we do not map).
+ * <p>
+ * Run with (extra JMH options such as {@code -wi 2 -i 3} can be appended to {@code exec.args}):
+ * {@code ./mvnw test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath be.ahm282.Athar.benchmark.BpostParsingBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class BpostParsingBenchmark {
+
+    @Param({"5", "60"})
+    public int eventCount;
+
+    private String json;
+    private byte[] bytes;
+    private ObjectMapper objectMapper;
+    private BpostResponseDecoder decoder;
+
+    @Setup
+    public void setup() {
+        json = BenchmarkPayloads.bpostResponse(eventCount);
+        bytes = json.getBytes(StandardCharsets.UTF_8);
+        objectMapper = new ObjectMapper();
+        decoder = new BpostResponseDecoder();
+    }
+
+    @Benchmark
+    public List<TrackingInfo> treeWalk() throws IOException {
+        JsonNode items = objectMapper.readTree(json).get("items");
+        List<TrackingInfo> results = new ArrayList<>();
+
+        for (JsonNode item : items) {
+            TrackingInfo info = new TrackingInfo();
+            info.setTrackingNumber(item.path("itemCode").asText());
+            info.setCarrier("Bpost");
+            info.setReceiverName(item.path("receiver").path("name").asText());
+            info.setDestinationStreet(item.path("receiver").path("street").asText());
+            info.setDestinationMunicipality(item.path("receiver").path("municipality").asText());
+            info.setDestinationPostcode(item.path("receiver").path("postcode").asText());
+            info.setDestinationCountry(item.path("receiver").path("countryCode").asText());
+            info.setSenderName(item.path("sender").path("name").asText());
+            info.setSenderStreet(item.path("sender").path("street").asText());
+            info.setSenderMunicipality(item.path("sender").path("municipality").asText());
+            info.setSenderPostcode(item.path("sender").path("postcode").asText());
+            info.setSenderCountry(item.path("sender").path("countryCode").asText());
+
+            for (JsonNode eventNode : item.path("events")) {
+                TrackingEvent event = new TrackingEvent();
+                event.setDate(eventNode.path("date").asText());
+                event.setTime(eventNode.path("time").asText());
+                event.setLocation(eventNode.path("location").path("locationName").asText());
+                event.setDescription(eventNode.path("key").path("EN").path("description").asText());
+                event.setIrregularity(eventNode.path("irregularity").asBoolean());
+                event.setTrackingInfo(info);
+                info.getEvents().add(event);
+            }
+            info.setStatus(item.path("events").path(0).path("key").path("EN").path("description").asText());
+            results.add(info);
+        }
+
+        return results;
+    }
+
+    @Benchmark
+    public List<TrackingInfo> typedReaderFromString() {
+        return decoder.decode(json);
+    }
+
+    @Benchmark
+    public List<TrackingInfo> typedStreamingFromBuffers() {
+        // 8 KiB chunks, roughly what Reactor Netty hands over per read
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += 8192) {
+            buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(ByteBuffer.wrap(bytes, offset, Math.min(8192, bytes.length - offset))));
+        }
+
+        return decoder.decode(Flux.fromIterable(buffers)).block();
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(BpostParsingBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+}
@@ -0,0 +1,185 @@
+package be.ahm282.Athar.benchmark;
+
+import be.ahm282.Athar.domain.EventFingerprint;
+import be.ahm282.Athar.domain.EventTime;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the statements Hibernate issues to insert the events of a new shipment, on a SQLite file database with
+ * the real {@code tracking_event} table and the former {@code id_generator} table:
+ * <ul>
+ *     <li>{@code identityPerRow}: the former {@code IDENTITY} ids, one INSERT and generated-key read per event</li>
+ *     <li>{@code pooledBatched}: the pooled table generator, one allocation UPDATE per 50 ids and the INSERTs sent
+ *     as a JDBC batch ({@code hibernate.jdbc.batch_size=50}); the ids counted up in memory that replaced it batch
+ *     the same way, without the allocation UPDATE</li>
+ * </ul>
+ * Each invocation inserts one shipment's events in its own transaction, like the strategy does.
+ * <p>
+ * Run with (extra JMH options such as {@code -wi 2 -i 3} can be appended to {@code exec.args}):
+ * {@code ./mvnw test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath be.ahm282.Athar.benchmark.EventInsertBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class EventInsertBenchmark {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final String INSERT_WITH_ID = "INSERT INTO tracking_event "
+            + "(created_date, date, description_code, fingerprint, irregularity, last_modified_date, location_code, occurred_at, time, tracking_info_id, id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_IDENTITY = "INSERT INTO tracking_event "
+            + "(created_date, date, description_code, fingerprint, irregularity, last_modified_date, location_code, occurred_at, time, tracking_info_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Param({"5", "30"})
+    public int eventCount;
+
+    private Path databaseFile;
+    private Connection connection;
+    private long shipment;
+    private long nextPooledId;
+    private long pooledHi;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, SQLException {
+        databaseFile = Files.createTempFile("athar-insert-benchmark", ".db");
+        connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile);
+        connection.setAutoCommit(false);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE tracking_event (id integer, created_date timestamp, date varchar(255), "
+                    + "description_code integer, fingerprint bigint not null default 0, irregularity boolean not null, last_modified_date timestamp, "
+                    + "location_code integer, occurred_at bigint, time varchar(255), tracking_info_id blob, primary key (id))");
+            statement.execute("CREATE UNIQUE INDEX uk_tracking_event_fingerprint ON tracking_event (tracking_info_id, fingerprint)");
+            statement.execute("CREATE INDEX ix_tracking_event_tracking_info_id_occurred_at ON tracking_event (tracking_info_id, occurred_at)");
+            statement.execute("CREATE INDEX ix_tracking_event_occurred_at ON tracking_event (occurred_at)");
+            statement.execute("CREATE TABLE id_generator (name varchar(255) not null, next_value bigint, primary key (name))");
+            statement.execute("INSERT INTO id_generator (name, next_value) VALUES ('tracking_event', 1)");
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        connection.close();
+        Files.deleteIfExists(databaseFile);
+    }
+
+    @Benchmark
+    public long identityPerRow() throws SQLException {
+        byte[] trackingInfoId = nextShipment();
+        long lastId = 0;
+
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_IDENTITY, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < eventCount; i++) {
+                bindEvent(insert, trackingInfoId, i);
+                insert.executeUpdate();
+
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                    lastId = keys.getLong(1);
+                }
+            }
+        }
+
+        connection.commit();
+        return lastId;
+    }
+
+    @Benchmark
+    public long pooledBatched() throws SQLException {
+        byte[] trackingInfoId = nextShipment();
+        long lastId = 0;
+
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_WITH_ID)) {
+            for (int i = 0; i < eventCount; i++) {
+                lastId = nextPooledId();
+                bindEvent(insert, trackingInfoId, i);
+                insert.setLong(11, lastId);
+                insert.addBatch();
+
+                if ((i + 1) % ALLOCATION_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+
+        connection.commit();
+        return lastId;
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(EventInsertBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    private byte[] nextShipment() {
+        shipment++;
+        byte[] id = new byte[16];
+        for (int i = 0; i < 8; i++) {
+            id[15 - i] = (byte) (shipment >>> (8 * i));
+        }
+        return id;
+    }
+
+    /**
+     * The same round-trips as Hibernate's pooled table optimizer: one read and one update per allocation block.
+     */
+    private long nextPooledId() throws SQLException {
+        if (nextPooledId >= pooledHi) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet value = statement.executeQuery("SELECT next_value FROM id_generator WHERE name = 'tracking_event'")) {
+                value.next();
+                nextPooledId = value.getLong(1);
+            }
+            try (PreparedStatement update = connection.prepareStatement("UPDATE id_generator SET next_value = ? WHERE name = 'tracking_event'")) {
+                update.setLong(1, nextPooledId + ALLOCATION_SIZE);
+                update.executeUpdate();
+            }
+            pooledHi = nextPooledId + ALLOCATION_SIZE;
+        }
+
+        return nextPooledId++;
+    }
+
+    private static void bindEvent(PreparedStatement insert, byte[] trackingInfoId, int index) throws SQLException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        String date = "2024-03-" + (10 + index % 20);
+        String time = String.format("%02d:%02d", index / 60 % 24, index % 60);
+        String description = "Event " + index;
+        String location = "BRUSSEL X";
+
+        insert.setTimestamp(1, now);
+        insert.setString(2, date);
+        // Dictionary codes, as the converters bind them once the values are known
+        insert.setInt(3, index + 2);
+        insert.setLong(4, EventFingerprint.of(date, time, description, location));
+        insert.setBoolean(5, false);
+        insert.setTimestamp(6, now);
+        insert.setInt(7, 1);
+        insert.setLong(8, EventTime.of(date, time).toEpochMilli());
+        insert.setString(9, time);
+        insert.setBytes(10, trackingInfoId);
+    }
+
+}
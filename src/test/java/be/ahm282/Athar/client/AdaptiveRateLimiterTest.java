@@ -0,0 +1,76 @@
+package be.ahm282.Athar.client;
+
+import be.ahm282.Athar.config.CarrierProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link AdaptiveRateLimiter}, driven by a manual clock.
+ */
+class AdaptiveRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private CarrierProperties.RateLimit config;
+
+    @BeforeEach
+    void setUp() {
+        config = new CarrierProperties.RateLimit();
+        config.setInitialRate(10);
+        config.setMinRate(1);
+        config.setMaxRate(20);
+        config.setBurst(2);
+        config.setMaxWait(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void reserve_beyondBurst_shouldWaitForRefill() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(config, clock::get);
+
+        assertEquals(Duration.ZERO, limiter.reserve());
+        assertEquals(Duration.ZERO, limiter.reserve());
+        assertEquals(Duration.ofMillis(100), limiter.reserve());
+    }
+
+    @Test
+    void reserve_waitLongerThanMaxWait_shouldRefuse() {
+        config.setMaxWait(Duration.ofMillis(150));
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(config, clock::get);
+
+        limiter.reserve();
+        limiter.reserve();
+        limiter.reserve();
+
+        assertNull(limiter.reserve());
+    }
+
+    @Test
+    void feedback_shouldIncreaseAdditivelyAndDecreaseMultiplicatively() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(config, clock::get);
+
+        limiter.onSuccess(Duration.ofMillis(100));
+        assertEquals(10.2, limiter.getRate(), 1e-9);
+
+        limiter.onFailure();
+        assertEquals(5.1, limiter.getRate(), 1e-9);
+
+        limiter.onSuccess(Duration.ofSeconds(10));
+        assertEquals(2.55, limiter.getRate(), 1e-9);
+    }
+
+    @Test
+    void onThrottled_shouldPauseUntilRetryAfter() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(config, clock::get);
+
+        limiter.onThrottled(Duration.ofSeconds(5));
+
+        assertNull(limiter.reserve());
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertEquals(Duration.ZERO, limiter.reserve());
+    }
+
+}
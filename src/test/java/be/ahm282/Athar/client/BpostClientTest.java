@@ -0,0 +1,114 @@
+package be.ahm282.Athar.client;
+
+import be.ahm282.Athar.config.CarrierProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the conditional fetch of {@link BpostClient}:
+ * <ul>
+ *     <li>a repeated body without validators completes empty without being decoded</li>
+ *     <li>a changed body without validators is decoded</li>
+ *     <li>a repeated body under ignored validators is decoded, but still completes empty</li>
+ * </ul>
+ */
+class BpostClientTest {
+
+    @Mock
+    private CarrierWebClientFactory webClientFactory;
+
+    @Mock
+    private UpstreamGuards upstreamGuards;
+
+    private final Deque<ClientResponse> responses = new ArrayDeque<>();
+    private final AtomicInteger decodes = new AtomicInteger();
+    private final Function<Flux<DataBuffer>, Mono<String>> decoder = body -> {
+        decodes.incrementAndGet();
+        return DataBufferUtils.join(body).map(buffer -> {
+            String decoded = buffer.toString(StandardCharsets.UTF_8);
+            DataBufferUtils.release(buffer);
+            return decoded;
+        });
+    };
+
+    private BpostClient bpostClient;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        when(webClientFactory.create("bpost")).thenReturn(WebClient.builder()
+                .exchangeFunction(request -> Mono.fromSupplier(responses::removeFirst))
+                .build());
+        when(upstreamGuards.forCarrier("bpost")).thenReturn(new UpstreamGuard("bpost", null, null, null));
+
+        CarrierProperties carrierProperties = new CarrierProperties();
+        carrierProperties.getCarriers().put("bpost", new CarrierProperties.Carrier());
+        bpostClient = new BpostClient(webClientFactory, upstreamGuards, carrierProperties);
+    }
+
+    @Test
+    void fetchIfModified_sameBodyWithoutValidators_shouldSkipDecoding() {
+        responses.add(response("{ \"items\": [] }", null));
+        responses.add(response("{ \"items\": [] }", null));
+
+        assertEquals("{ \"items\": [] }", fetch());
+        assertNull(fetch());
+
+        assertEquals(1, decodes.get());
+    }
+
+    @Test
+    void fetchIfModified_changedBodyWithoutValidators_shouldDecode() {
+        responses.add(response("{ \"items\": [] }", null));
+        responses.add(response("{ \"items\": [{}] }", null));
+
+        assertEquals("{ \"items\": [] }", fetch());
+        assertEquals("{ \"items\": [{}] }", fetch());
+
+        assertEquals(2, decodes.get());
+    }
+
+    @Test
+    void fetchIfModified_sameBodyWithIgnoredValidators_shouldDecodeButCompleteEmpty() {
+        responses.add(response("{ \"items\": [] }", "\"v1\""));
+        responses.add(response("{ \"items\": [] }", "\"v1\""));
+
+        assertEquals("{ \"items\": [] }", fetch());
+        assertNull(fetch());
+
+        assertEquals(2, decodes.get());
+    }
+
+    private String fetch() {
+        return bpostClient.fetchTrackingDataIfModified("323299901234567890", "2340", decoder).block();
+    }
+
+    private static ClientResponse response(String body, String etag) {
+        ClientResponse.Builder builder = ClientResponse.create(HttpStatus.OK).body(body);
+        if (etag != null) {
+            builder.header(HttpHeaders.ETAG, etag);
+        }
+        return builder.build();
+    }
+
+}
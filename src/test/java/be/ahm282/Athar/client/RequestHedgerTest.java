@@ -0,0 +1,103 @@
+package be.ahm282.Athar.client;
+
+import be.ahm282.Athar.config.CarrierProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RequestHedger}.
+ */
+class RequestHedgerTest {
+
+    private CarrierProperties.Hedge config;
+
+    @BeforeEach
+    void setUp() {
+        config = new CarrierProperties.Hedge();
+        config.setEnabled(true);
+        config.setPercentile(90);
+        config.setMinDelay(Duration.ofMillis(10));
+        config.setMaxDelay(Duration.ofSeconds(1));
+        config.setWindowSize(10);
+        config.setMinSamples(10);
+        config.setMaxRatio(1);
+    }
+
+    @Test
+    void delay_shouldFollowPercentileOnceEnoughSamples() {
+        RequestHedger hedger = new RequestHedger("bpost", config, new SimpleMeterRegistry());
+
+        for (int i = 1; i <= 9; i++) {
+            hedger.record(Duration.ofMillis(i * 20L).toNanos());
+        }
+        assertNull(hedger.getDelay());
+
+        hedger.record(Duration.ofMillis(200).toNanos());
+        assertEquals(Duration.ofMillis(180), hedger.getDelay());
+    }
+
+    @Test
+    void delay_shouldStayWithinBounds() {
+        RequestHedger hedger = new RequestHedger("bpost", config, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 10; i++) {
+            hedger.record(Duration.ofSeconds(30).toNanos());
+        }
+
+        assertEquals(Duration.ofSeconds(1), hedger.getDelay());
+    }
+
+    @Test
+    void budget_shouldCapHedgeRatio() {
+        config.setMaxRatio(0.5);
+        RequestHedger hedger = new RequestHedger("bpost", config, new SimpleMeterRegistry());
+
+        hedger.onCall();
+        assertFalse(hedger.tryAcquireHedge());
+
+        hedger.onCall();
+        assertTrue(hedger.tryAcquireHedge());
+        assertFalse(hedger.tryAcquireHedge());
+    }
+
+    @Test
+    void hedge_firstCallStalls_shouldUseHedgeAnswer() {
+        RequestHedger hedger = new RequestHedger("bpost", config, new SimpleMeterRegistry());
+        for (int i = 0; i < 10; i++) {
+            hedger.record(Duration.ofMillis(5).toNanos());
+        }
+
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> attempts.incrementAndGet() == 1 ? Mono.never() : Mono.just("hedge"));
+
+        assertEquals("hedge", hedger.hedge(call).block(Duration.ofSeconds(5)));
+        assertEquals(2, attempts.get());
+        assertEquals(1, hedger.getHedgesSent());
+        assertEquals(1, hedger.getHedgesWon());
+    }
+
+    @Test
+    void hedge_failingHedge_shouldWaitForFirstCall() {
+        RequestHedger hedger = new RequestHedger("bpost", config, new SimpleMeterRegistry());
+        for (int i = 0; i < 10; i++) {
+            hedger.record(Duration.ofMillis(5).toNanos());
+        }
+
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> attempts.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofMillis(100)).thenReturn("first")
+                : Mono.error(new UpstreamUnavailableException("Rate limit for bpost exceeded")));
+
+        assertEquals("first", hedger.hedge(call).block(Duration.ofSeconds(5)));
+        assertEquals(1, hedger.getHedgesSent());
+        assertEquals(0, hedger.getHedgesWon());
+    }
+
+}
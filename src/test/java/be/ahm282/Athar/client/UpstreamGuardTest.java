@@ -0,0 +1,73 @@
+package be.ahm282.Athar.client;
+
+import be.ahm282.Athar.config.CarrierProperties;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the circuit breaker outcomes recorded by {@link UpstreamGuard}:
+ * <ul>
+ *     <li>5xx answers and timeouts count as failures</li>
+ *     <li>4xx answers and local rate limiter refusals are not recorded at all</li>
+ * </ul>
+ */
+class UpstreamGuardTest {
+
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreaker = CircuitBreaker.of("bpost", UpstreamGuards.circuitBreakerConfig(new CarrierProperties.CircuitBreaker()));
+    }
+
+    @Test
+    void guard_serverErrorOrTimeout_shouldRecordFailure() {
+        UpstreamGuard guard = new UpstreamGuard("bpost", null, circuitBreaker, null);
+
+        assertThrows(WebClientResponseException.class, () -> guard.guard(Mono.error(responseException(HttpStatus.SERVICE_UNAVAILABLE))).block());
+        assertThrows(RuntimeException.class, () -> guard.guard(Mono.error(new TimeoutException())).block());
+
+        assertEquals(2, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void guard_clientError_shouldNotBeRecorded() {
+        UpstreamGuard guard = new UpstreamGuard("bpost", null, circuitBreaker, null);
+
+        assertThrows(WebClientResponseException.class, () -> guard.guard(Mono.error(responseException(HttpStatus.NOT_FOUND))).block());
+        assertThrows(WebClientResponseException.class, () -> guard.guard(Mono.error(responseException(HttpStatus.TOO_MANY_REQUESTS))).block());
+
+        assertEquals(0, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+        assertEquals(0, circuitBreaker.getMetrics().getNumberOfSuccessfulCalls());
+    }
+
+    @Test
+    void guard_rateLimiterRefusal_shouldNotBeRecorded() {
+        CarrierProperties.RateLimit config = new CarrierProperties.RateLimit();
+        config.setBurst(1);
+        config.setMaxWait(Duration.ZERO);
+        // A stopped clock: the bucket never refills
+        UpstreamGuard guard = new UpstreamGuard("bpost", new AdaptiveRateLimiter(config, () -> 0L), circuitBreaker, null);
+
+        assertEquals("ok", guard.guard(Mono.just("ok")).block());
+        assertThrows(UpstreamUnavailableException.class, () -> guard.guard(Mono.just("ok")).block());
+
+        assertEquals(0, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+        assertEquals(1, circuitBreaker.getMetrics().getNumberOfSuccessfulCalls());
+    }
+
+    private static WebClientResponseException responseException(HttpStatus status) {
+        return WebClientResponseException.create(status.value(), status.getReasonPhrase(), HttpHeaders.EMPTY, new byte[0], null);
+    }
+
+}
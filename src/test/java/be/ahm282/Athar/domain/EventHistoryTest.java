@@ -0,0 +1,73 @@
+package be.ahm282.Athar.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link EventHistory}:
+ * <ul>
+ *     <li>encoded events decode to the same values, nulls included</li>
+ *     <li>appending only stores events that are not in the history yet</li>
+ *     <li>a history with many segments is rewritten as one</li>
+ * </ul>
+ */
+class EventHistoryTest {
+
+    @Test
+    void decode_shouldRestoreEncodedEvents() {
+        List<TrackingEvent> events = List.of(
+                event("2024-03-10", "08:15", "BRUSSEL X", "Item received", false),
+                event("2024-03-11", "17:02", null, "Item delivered", true));
+
+        List<TrackingEvent> decoded = EventHistory.decode(EventHistory.encode(events));
+
+        assertEquals(2, decoded.size());
+        assertEquals("BRUSSEL X", decoded.get(0).getLocation());
+        assertNull(decoded.get(1).getLocation());
+        assertTrue(decoded.get(1).isIrregularity());
+        assertEquals(EventFingerprint.of("2024-03-11", "17:02", "Item delivered", null), decoded.get(1).getFingerprint());
+    }
+
+    @Test
+    void append_shouldOnlyAddNewEvents() {
+        TrackingEvent received = event("2024-03-10", "08:15", "BRUSSEL X", "Item received", false);
+        TrackingEvent delivered = event("2024-03-11", "17:02", "GENT X", "Item delivered", false);
+        byte[] history = EventHistory.encode(List.of(received));
+
+        assertSame(history, EventHistory.append(history, List.of(received)));
+
+        byte[] appended = EventHistory.append(history, List.of(received, delivered));
+        assertEquals(2, EventHistory.countSegments(appended));
+        assertEquals(List.of("Item received", "Item delivered"),
+                EventHistory.decode(appended).stream().map(TrackingEvent::getDescription).toList());
+    }
+
+    @Test
+    void append_manySegments_shouldRewriteAsOneSegment() {
+        byte[] history = null;
+        List<TrackingEvent> all = new ArrayList<>();
+
+        for (int i = 0; i < EventHistory.MAX_SEGMENTS + 1; i++) {
+            all.add(event("2024-03-" + (10 + i), "12:00", "BRUSSEL X", "Item in transit", false));
+            history = EventHistory.append(history, all);
+        }
+
+        assertEquals(1, EventHistory.countSegments(history));
+        assertEquals(all.size(), EventHistory.decode(history).size());
+    }
+
+    private static TrackingEvent event(String date, String time, String location, String description, boolean irregularity) {
+        TrackingEvent event = new TrackingEvent();
+        event.setDate(date);
+        event.setTime(time);
+        event.setLocation(location);
+        event.setDescription(description);
+        event.setIrregularity(irregularity);
+        return event;
+    }
+
+}
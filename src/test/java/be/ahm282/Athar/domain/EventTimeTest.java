@@ -0,0 +1,39 @@
+package be.ahm282.Athar.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link EventTime}:
+ * <ul>
+ *     <li>local times convert with the Belgian winter and summer offsets</li>
+ *     <li>a missing time is taken as midnight</li>
+ *     <li>a missing or malformed date or time gives no instant</li>
+ * </ul>
+ */
+class EventTimeTest {
+
+    @Test
+    void of_shouldApplyCarrierZoneOffset() {
+        assertEquals(Instant.parse("2024-01-15T09:30:00Z"), EventTime.of("2024-01-15", "10:30"));
+        assertEquals(Instant.parse("2024-07-15T08:30:00Z"), EventTime.of("2024-07-15", "10:30"));
+    }
+
+    @Test
+    void of_missingTime_shouldUseMidnight() {
+        assertEquals(Instant.parse("2024-01-14T23:00:00Z"), EventTime.of("2024-01-15", null));
+        assertEquals(Instant.parse("2024-01-14T23:00:00Z"), EventTime.of("2024-01-15", ""));
+    }
+
+    @Test
+    void of_missingOrMalformedValues_shouldReturnNull() {
+        assertNull(EventTime.of(null, "10:30"));
+        assertNull(EventTime.of("", "10:30"));
+        assertNull(EventTime.of("15/01/2024", "10:30"));
+        assertNull(EventTime.of("2024-01-15", "half past ten"));
+    }
+
+}
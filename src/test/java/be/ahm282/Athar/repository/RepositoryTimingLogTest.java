@@ -0,0 +1,81 @@
+package be.ahm282.Athar.repository;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocation;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocationResult;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RepositoryTimingLog}:
+ * <ul>
+ *     <li>slow calls are logged as warnings with their repository method</li>
+ *     <li>fast calls are only logged when sampled</li>
+ * </ul>
+ */
+class RepositoryTimingLogTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(RepositoryTimingLog.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    void afterInvocation_slowCall_shouldWarnWithRepositoryMethod() throws NoSuchMethodException {
+        RepositoryTimingLog timingLog = new RepositoryTimingLog(Duration.ofMillis(100), 0);
+
+        timingLog.afterInvocation(invocation(TimeUnit.MILLISECONDS.toNanos(250)));
+
+        assertEquals(1, appender.list.size());
+        ILoggingEvent event = appender.list.get(0);
+        assertEquals(Level.WARN, event.getLevel());
+        assertTrue(event.getFormattedMessage().contains("TrackingInfoRepository.findByTrackingNumber took 250 ms"));
+    }
+
+    @Test
+    void afterInvocation_fastCall_shouldOnlyBeLoggedWhenSampled() throws NoSuchMethodException {
+        new RepositoryTimingLog(Duration.ofMillis(100), 0).afterInvocation(invocation(TimeUnit.MILLISECONDS.toNanos(5)));
+        assertTrue(appender.list.isEmpty());
+
+        new RepositoryTimingLog(Duration.ofMillis(100), 1).afterInvocation(invocation(TimeUnit.MILLISECONDS.toNanos(5)));
+        assertEquals(1, appender.list.size());
+        assertEquals(Level.INFO, appender.list.get(0).getLevel());
+    }
+
+    private static RepositoryMethodInvocation invocation(long durationNanos) throws NoSuchMethodException {
+        RepositoryMethodInvocationResult result = new RepositoryMethodInvocationResult() {
+            @Override
+            public State getState() {
+                return State.SUCCESS;
+            }
+
+            @Override
+            public Throwable getError() {
+                return null;
+            }
+        };
+
+        return new RepositoryMethodInvocation(TrackingInfoRepository.class,
+                TrackingInfoRepository.class.getMethod("findByTrackingNumber", String.class), result, durationNanos);
+    }
+
+}
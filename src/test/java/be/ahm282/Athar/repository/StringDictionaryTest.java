@@ -0,0 +1,96 @@
+package be.ahm282.Athar.repository;
+
+import be.ahm282.Athar.repository.StringDictionary.Kind;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link StringDictionary}, against an in-memory SQLite database:
+ * <ul>
+ *     <li>values written in a read-write transaction get a code and decode to one shared instance</li>
+ *     <li>values looked up outside a read-write transaction are not added</li>
+ *     <li>codes of a rolled back transaction are not kept in memory</li>
+ * </ul>
+ */
+class StringDictionaryTest {
+
+    private SingleConnectionDataSource dataSource;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private TransactionTemplate transaction;
+    private StringDictionary dictionary;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite::memory:", true);
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE string_dictionary (code integer not null, kind varchar(32) not null, "
+                + "value varchar(255) not null, primary key (code))");
+        jdbcTemplate.getJdbcTemplate().execute("CREATE UNIQUE INDEX uk_string_dictionary_kind_value ON string_dictionary (kind, value)");
+
+        transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        dictionary = new StringDictionary(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void codeOf_inReadWriteTransaction_shouldAddValueOnce() {
+        Integer code = transaction.execute(status -> dictionary.codeOf(Kind.STATUS, "DELIVERED"));
+        Integer again = transaction.execute(status -> dictionary.codeOf(Kind.STATUS, new String("DELIVERED")));
+
+        assertNotNull(code);
+        assertEquals(code, again);
+        assertNotEquals(code, transaction.execute(status -> dictionary.codeOf(Kind.CARRIER, "DELIVERED")));
+        assertEquals(2, count());
+    }
+
+    @Test
+    void valueOf_shouldReturnSharedInstance() {
+        Integer code = transaction.execute(status -> dictionary.codeOf(Kind.EVENT_LOCATION, "BRUSSEL X"));
+
+        StringDictionary reloaded = new StringDictionary(jdbcTemplate);
+        String first = reloaded.valueOf(code);
+        String second = reloaded.valueOf(code);
+
+        assertEquals("BRUSSEL X", first);
+        assertSame(first, second);
+        assertNull(reloaded.valueOf(null));
+    }
+
+    @Test
+    void codeOf_outsideReadWriteTransaction_shouldNotAddValue() {
+        assertEquals(StringDictionary.UNKNOWN, dictionary.codeOf(Kind.STATUS, "IN_TRANSIT"));
+        assertNull(dictionary.codeOf(Kind.STATUS, null));
+        assertEquals(0, count());
+    }
+
+    @Test
+    void codeOf_rolledBack_shouldNotKeepCode() {
+        Integer rolledBack = transaction.execute(status -> {
+            status.setRollbackOnly();
+            return dictionary.codeOf(Kind.EVENT_DESCRIPTION, "Parcel lost");
+        });
+
+        // SQLite reuses the code of the rolled back row
+        Integer code = transaction.execute(status -> dictionary.codeOf(Kind.EVENT_DESCRIPTION, "Delivered"));
+
+        assertEquals(rolledBack, code);
+        assertEquals("Delivered", dictionary.valueOf(code));
+        assertEquals(StringDictionary.UNKNOWN, dictionary.codeOf(Kind.EVENT_DESCRIPTION, "Parcel lost"));
+    }
+
+    private int count() {
+        return jdbcTemplate.getJdbcTemplate().queryForObject("SELECT count(*) FROM string_dictionary", Integer.class);
+    }
+
+}
@@ -0,0 +1,121 @@
+package be.ahm282.Athar.repository;
+
+import be.ahm282.Athar.domain.TrackingEvent;
+import be.ahm282.Athar.domain.TrackingInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link TrackingEventRepository#insertAll(List)} against the SQLite database, whose INSERT statement is
+ * written by hand (see {@link TrackingEvent}):
+ * <ul>
+ *     <li>every attribute is stored in its own column</li>
+ *     <li>an event whose fingerprint the shipment already has is ignored</li>
+ * </ul>
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:sqlite:./target/persistence-test.db")
+class TrackingEventRepositoryTest {
+
+    private static final Instant OCCURRED_AT = Instant.parse("2023-12-01T09:30:00Z");
+    private static final long FINGERPRINT = 4_242_424_242L;
+
+    @Autowired
+    private TrackingEventRepository trackingEventRepository;
+
+    @Autowired
+    private TrackingInfoRepository trackingInfoRepository;
+
+    @Autowired
+    private StringDictionary dictionary;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void insertAll_shouldStoreEveryAttributeInItsColumn() {
+        // Arrange
+        UUID shipmentId = storeShipment();
+
+        // Act
+        Long id = insert(shipmentId, event("Sorted", "Antwerp"));
+
+        // Assert
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT * FROM tracking_event WHERE id = ?", id);
+        assertEquals("2023-12-01", row.get("date"));
+        assertEquals("10:30:00", row.get("time"));
+        assertEquals("Antwerp", dictionary.valueOf(((Number) row.get("location_code")).intValue()));
+        assertEquals("Sorted", dictionary.valueOf(((Number) row.get("description_code")).intValue()));
+        assertEquals(1, ((Number) row.get("irregularity")).intValue());
+        assertEquals(OCCURRED_AT.toEpochMilli(), ((Number) row.get("occurred_at")).longValue());
+        assertEquals(FINGERPRINT, ((Number) row.get("fingerprint")).longValue());
+        assertNotNull(row.get("created_date"));
+        assertNotNull(row.get("last_modified_date"));
+        assertArrayEquals(toBytes(shipmentId), (byte[]) row.get("tracking_info_id"));
+    }
+
+    @Test
+    void insertAll_fingerprintAlreadyStored_shouldBeIgnored() {
+        // Arrange
+        UUID shipmentId = storeShipment();
+        insert(shipmentId, event("Sorted", "Antwerp"));
+
+        // Act
+        insert(shipmentId, event("Delivered", "Brussels"));
+
+        // Assert
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT description_code FROM tracking_event WHERE tracking_info_id = ?",
+                (Object) toBytes(shipmentId));
+        assertEquals(1, rows.size());
+        assertEquals("Sorted", dictionary.valueOf(((Number) rows.get(0).get("description_code")).intValue()));
+    }
+
+    private UUID storeShipment() {
+        TrackingInfo info = new TrackingInfo();
+        info.setTrackingNumber("TEST" + UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase());
+        info.setCarrier("bpost");
+        return transactionTemplate.execute(status -> trackingInfoRepository.save(info).getId());
+    }
+
+    private Long insert(UUID shipmentId, TrackingEvent event) {
+        return transactionTemplate.execute(status -> {
+            event.setTrackingInfo(trackingInfoRepository.findById(shipmentId).orElseThrow());
+            trackingEventRepository.insertAll(List.of(event));
+            return event.getId();
+        });
+    }
+
+    // Values that differ from what the entity would derive, so a value bound to the wrong column does not go unnoticed
+    private static TrackingEvent event(String description, String location) {
+        TrackingEvent event = new TrackingEvent();
+        event.setDate("2023-12-01");
+        event.setTime("10:30:00");
+        event.setDescription(description);
+        event.setLocation(location);
+        event.setIrregularity(true);
+        event.setOccurredAt(OCCURRED_AT);
+        event.setFingerprint(FINGERPRINT);
+        return event;
+    }
+
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+}
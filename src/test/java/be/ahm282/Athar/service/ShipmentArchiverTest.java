@@ -0,0 +1,169 @@
+package be.ahm282.Athar.service;
+
+import be.ahm282.Athar.config.TrackingProperties;
+import be.ahm282.Athar.domain.TrackingEvent;
+import be.ahm282.Athar.domain.TrackingInfo;
+import be.ahm282.Athar.repository.ShipmentArchiveRepository;
+import be.ahm282.Athar.repository.TrackingInfoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link ShipmentArchiver} and {@link ShipmentArchiveRepository} against the SQLite database:
+ * <ul>
+ *     <li>a final shipment not modified for the configured age moves to the archive with its events</li>
+ *     <li>active and recently modified shipments stay in the hot tables</li>
+ *     <li>a shipment refreshed between the read and the move is not archived</li>
+ *     <li>archiving a shipment again replaces its older archived copy</li>
+ * </ul>
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:sqlite:./target/persistence-test.db")
+class ShipmentArchiverTest {
+
+    private static final LocalDateTime LONG_AGO = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @Autowired
+    private ShipmentArchiveRepository archiveRepository;
+
+    @Autowired
+    private TrackingInfoRepository trackingInfoRepository;
+
+    @Autowired
+    private ShipmentStatusClassifier statusClassifier;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void archiveDue_shouldMoveOnlyAgedFinalShipmentsWithTheirEvents() {
+        // Arrange
+        String delivered = storeNew("Delivered", "Received", "Delivered");
+        String inTransit = storeNew("In transit", "Received", "Sorted");
+        String recentlyDelivered = storeNew("Delivered", "Received", "Delivered");
+        age(delivered);
+        age(inTransit);
+
+        TrackingProperties trackingProperties = new TrackingProperties();
+        trackingProperties.getArchive().setPause(Duration.ZERO);
+        ShipmentArchiver archiver = new ShipmentArchiver(archiveRepository, statusClassifier, trackingProperties,
+                transactionManager, entityManagerFactory, new SimpleMeterRegistry());
+
+        // Act
+        int archived = archiver.archiveDue();
+
+        // Assert
+        assertTrue(archived >= 1);
+        assertTrue(trackingInfoRepository.findCachedByTrackingNumber(delivered).isEmpty());
+        assertEquals(0, countHotEvents(delivered));
+        TrackingInfo archivedShipment = archiveRepository.findByTrackingNumber(delivered).orElseThrow();
+        assertEquals("Delivered", archivedShipment.getStatus());
+        assertEquals(List.of("Received", "Delivered"), archivedShipment.getEvents().stream().map(TrackingEvent::getDescription).toList());
+
+        assertTrue(trackingInfoRepository.findCachedByTrackingNumber(inTransit).isPresent());
+        assertTrue(trackingInfoRepository.findCachedByTrackingNumber(recentlyDelivered).isPresent());
+        assertTrue(archiveRepository.findByTrackingNumber(inTransit).isEmpty());
+        assertTrue(archiveRepository.findByTrackingNumber(recentlyDelivered).isEmpty());
+    }
+
+    @Test
+    void findCandidatesById_shipmentRefreshedSinceRead_shouldBeKept() {
+        // Arrange
+        String trackingNumber = storeNew("Delivered", "Delivered");
+        age(trackingNumber);
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(30);
+        List<byte[]> ids = List.of(hotId(trackingNumber));
+        assertEquals(1, archiveRepository.findCandidatesById(ids, cutoff).size());
+
+        // Act
+        jdbcTemplate.update("UPDATE tracking_info SET last_modified_date = ? WHERE tracking_number = ?",
+                Timestamp.valueOf(LocalDateTime.now()), trackingNumber);
+
+        // Assert
+        assertTrue(archiveRepository.findCandidatesById(ids, cutoff).isEmpty());
+    }
+
+    @Test
+    void moveToArchive_trackingNumberArchivedBefore_shouldReplaceOlderCopy() {
+        // Arrange
+        String trackingNumber = newTrackingNumber();
+        store(trackingNumber, "Delivered", "Delivered");
+        byte[] olderId = hotId(trackingNumber);
+        transactionTemplate.executeWithoutResult(status -> archiveRepository.moveToArchive(List.of(olderId), LocalDateTime.now()));
+        store(trackingNumber, "Returned to sender", "Received", "Returned to sender");
+        byte[] newerId = hotId(trackingNumber);
+
+        // Act
+        transactionTemplate.executeWithoutResult(status -> archiveRepository.moveToArchive(List.of(newerId), LocalDateTime.now()));
+
+        // Assert
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM tracking_info_archive WHERE tracking_number = ?", Integer.class, trackingNumber));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM tracking_event_archive WHERE tracking_info_id = ?", Integer.class, (Object) olderId));
+        TrackingInfo archived = archiveRepository.findByTrackingNumber(trackingNumber).orElseThrow();
+        assertEquals("Returned to sender", archived.getStatus());
+        assertEquals(List.of("Received", "Returned to sender"), archived.getEvents().stream().map(TrackingEvent::getDescription).toList());
+    }
+
+    private String storeNew(String status, String... descriptions) {
+        String trackingNumber = newTrackingNumber();
+        store(trackingNumber, status, descriptions);
+        return trackingNumber;
+    }
+
+    private void store(String trackingNumber, String status, String... descriptions) {
+        TrackingInfo info = new TrackingInfo();
+        info.setTrackingNumber(trackingNumber);
+        info.setCarrier("bpost");
+        info.setStatus(status);
+        for (int day = 0; day < descriptions.length; day++) {
+            TrackingEvent event = new TrackingEvent();
+            event.setDate("2023-12-0" + (day + 1));
+            event.setTime("10:00:00");
+            event.setDescription(descriptions[day]);
+            event.setLocation("Brussels");
+            event.setTrackingInfo(info);
+            info.getEvents().add(event);
+        }
+        transactionTemplate.executeWithoutResult(transaction -> trackingInfoRepository.save(info));
+    }
+
+    private void age(String trackingNumber) {
+        jdbcTemplate.update("UPDATE tracking_info SET last_modified_date = ? WHERE tracking_number = ?", Timestamp.valueOf(LONG_AGO), trackingNumber);
+    }
+
+    private byte[] hotId(String trackingNumber) {
+        return jdbcTemplate.queryForObject("SELECT id FROM tracking_info WHERE tracking_number = ?", byte[].class, trackingNumber);
+    }
+
+    private int countHotEvents(String trackingNumber) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM tracking_event e JOIN tracking_info t ON t.id = e.tracking_info_id "
+                + "WHERE t.tracking_number = ?", Integer.class, trackingNumber);
+    }
+
+    private static String newTrackingNumber() {
+        return "TEST" + UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase();
+    }
+
+}
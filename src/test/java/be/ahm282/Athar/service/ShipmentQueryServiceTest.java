@@ -0,0 +1,101 @@
+package be.ahm282.Athar.service;
+
+import be.ahm282.Athar.config.TrackingProperties;
+import be.ahm282.Athar.dto.ShipmentPage;
+import be.ahm282.Athar.dto.ShipmentQuery;
+import be.ahm282.Athar.dto.ShipmentSummary;
+import be.ahm282.Athar.repository.TrackingInfoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ShipmentQueryService}:
+ * <ul>
+ *     <li>a full page returns a cursor that resumes after its last tracking number</li>
+ *     <li>the last page has no cursor</li>
+ *     <li>requested sizes are capped and empty filters are ignored</li>
+ * </ul>
+ */
+class ShipmentQueryServiceTest {
+
+    @Mock
+    private TrackingInfoRepository trackingInfoRepository;
+
+    private TrackingProperties trackingProperties;
+    private ShipmentQueryService service;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        trackingProperties = new TrackingProperties();
+        trackingProperties.getQuery().setDefaultPageSize(2);
+        trackingProperties.getQuery().setMaxPageSize(3);
+        service = new ShipmentQueryService(trackingInfoRepository, trackingProperties);
+    }
+
+    @Test
+    void findShipments_morePages_shouldReturnCursorOfLastItem() {
+        when(trackingInfoRepository.findSummaries(isNull(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(summaries("A1", "A2", "A3"));
+        when(trackingInfoRepository.findSummaries(eq("A2"), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(summaries("A3"));
+
+        ShipmentPage first = service.findShipments(new ShipmentQuery());
+
+        assertEquals(List.of("A1", "A2"), trackingNumbers(first));
+        assertNotNull(first.getNextCursor());
+
+        ShipmentQuery next = new ShipmentQuery();
+        next.setCursor(first.getNextCursor());
+        ShipmentPage second = service.findShipments(next);
+
+        assertEquals(List.of("A3"), trackingNumbers(second));
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void findShipments_shouldCapSizeAndIgnoreEmptyFilters() {
+        when(trackingInfoRepository.findSummaries(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of());
+
+        ShipmentQuery query = new ShipmentQuery();
+        query.setStatus("");
+        query.setCarrier("bpost");
+        query.setSize(1000);
+        service.findShipments(query);
+
+        verify(trackingInfoRepository).findSummaries(isNull(), isNull(), eq("bpost"), isNull(), isNull(), isNull(), isNull(), eq(PageRequest.ofSize(4)));
+    }
+
+    @Test
+    void findShipments_invalidInput_shouldThrow() {
+        ShipmentQuery badCursor = new ShipmentQuery();
+        badCursor.setCursor("not a cursor!");
+        ShipmentQuery badSize = new ShipmentQuery();
+        badSize.setSize(0);
+
+        assertThrows(IllegalArgumentException.class, () -> service.findShipments(badCursor));
+        assertThrows(IllegalArgumentException.class, () -> service.findShipments(badSize));
+    }
+
+    private static List<ShipmentSummary> summaries(String... trackingNumbers) {
+        return IntStream.range(0, trackingNumbers.length)
+                .mapToObj(i -> new ShipmentSummary(trackingNumbers[i], "bpost", "IN_TRANSIT", null, null, null, null, null))
+                .toList();
+    }
+
+    private static List<String> trackingNumbers(ShipmentPage page) {
+        return page.getItems().stream().map(ShipmentSummary::getTrackingNumber).toList();
+    }
+
+}
@@ -0,0 +1,185 @@
+package be.ahm282.Athar.service;
+
+import be.ahm282.Athar.client.UpstreamUnavailableException;
+import be.ahm282.Athar.config.TrackingProperties;
+import be.ahm282.Athar.domain.TrackingInfo;
+import be.ahm282.Athar.dto.BatchTrackingItem;
+import be.ahm282.Athar.dto.BatchTrackingResult;
+import be.ahm282.Athar.dto.TrackingInfoResponse;
+import be.ahm282.Athar.dto.TrackingRequest;
+import be.ahm282.Athar.strategy.TrackingStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+public class TrackingServiceTest {
+
+    @Mock
+    private TrackingStrategy strategy;
+
+    private TrackingProperties trackingProperties;
+    private TrackingService trackingService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        trackingProperties = new TrackingProperties();
+        when(strategy.supports("bpost")).thenReturn(true);
+        TrackingResultCache resultCache = new TrackingResultCache(trackingProperties, new ShipmentStatusClassifier(trackingProperties), new SimpleMeterRegistry());
+        trackingService = new TrackingService(List.of(strategy), trackingProperties, resultCache);
+    }
+
+    @Test
+    void trackBatch_shouldReportErrorsPerItemAndKeepInputOrder() {
+        // Arrange
+        TrackingInfo info = new TrackingInfo();
+        info.setTrackingNumber("A");
+        when(strategy.trackAsync(argThat(r -> r != null && "A".equals(r.getTrackingNumber())))).thenReturn(Mono.just(List.of(info)));
+        when(strategy.trackAsync(argThat(r -> r != null && "B".equals(r.getTrackingNumber()))))
+                .thenReturn(Mono.error(new IllegalArgumentException("Postcode is required!")));
+        when(strategy.trackAsync(argThat(r -> r != null && "D".equals(r.getTrackingNumber()))))
+                .thenReturn(Mono.error(new UpstreamUnavailableException("Bpost circuit breaker is open")));
+        when(strategy.trackAsync(argThat(r -> r != null && "E".equals(r.getTrackingNumber()))))
+                .thenReturn(Mono.error(new IllegalStateException("SQL [insert into tracking_info ...]")));
+
+        List<BatchTrackingItem> items = List.of(
+                new BatchTrackingItem("bpost", "A", "2340"),
+                new BatchTrackingItem("bpost", "B", null),
+                new BatchTrackingItem("DHL", "C", "1000"),
+                new BatchTrackingItem("bpost", "D", "2340"),
+                new BatchTrackingItem("bpost", "E", "2340"));
+
+        // Act
+        List<BatchTrackingResult> results = trackingService.trackBatch(items).block();
+
+        // Assert
+        assertNotNull(results);
+        assertEquals(List.of("A", "B", "C", "D", "E"), results.stream().map(BatchTrackingResult::getTrackingNumber).toList());
+        assertNull(results.get(0).getError());
+        assertEquals(1, results.get(0).getResults().size());
+        assertEquals(BatchTrackingResult.INVALID_REQUEST, results.get(1).getError());
+        assertEquals(BatchTrackingResult.UNSUPPORTED_CARRIER, results.get(2).getError());
+        assertEquals(BatchTrackingResult.UPSTREAM_UNAVAILABLE, results.get(3).getError());
+        assertEquals(BatchTrackingResult.INTERNAL_ERROR, results.get(4).getError());
+    }
+
+    @Test
+    void trackAsync_repeatedLookup_shouldBeServedFromCache() {
+        // Arrange
+        TrackingInfo info = new TrackingInfo();
+        info.setStatus("In transit");
+        when(strategy.trackAsync(any(TrackingRequest.class))).thenReturn(Mono.just(List.of(info)));
+
+        // Act
+        List<TrackingInfoResponse> first = trackingService.trackAsync("bpost", new TrackingRequest("A", "2340")).block();
+        List<TrackingInfoResponse> second = trackingService.trackAsync("bpost", new TrackingRequest("A", "2340")).block();
+
+        // Assert
+        assertEquals(List.of(TrackingInfoResponse.from(info)), second);
+        assertSame(first, second);
+        verify(strategy, times(1)).trackAsync(any(TrackingRequest.class));
+    }
+
+    @Test
+    void trackAsync_concurrentIdenticalLookups_shouldShareOneUpstreamCall() {
+        // Arrange
+        Sinks.One<List<TrackingInfo>> upstream = Sinks.one();
+        when(strategy.trackAsync(any(TrackingRequest.class))).thenReturn(upstream.asMono());
+        TrackingInfo info = new TrackingInfo();
+        info.setStatus("In transit");
+
+        // Act
+        CompletableFuture<List<TrackingInfoResponse>> first = trackingService.trackAsync("bpost", new TrackingRequest("A", "2340")).toFuture();
+        CompletableFuture<List<TrackingInfoResponse>> second = trackingService.trackAsync("bpost", new TrackingRequest("A", "2340")).toFuture();
+        upstream.tryEmitValue(List.of(info));
+
+        // Assert
+        assertEquals(List.of(TrackingInfoResponse.from(info)), first.join());
+        assertEquals(List.of(TrackingInfoResponse.from(info)), second.join());
+        verify(strategy, times(1)).trackAsync(any(TrackingRequest.class));
+    }
+
+    @Test
+    void singleFlight_shouldReleaseKeyAfterFailure() {
+        // Arrange
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("A", () -> Mono.error(new IllegalStateException())).block());
+        String retried = singleFlight.execute("A", () -> Mono.just("ok")).block();
+
+        // Assert
+        assertEquals("ok", retried);
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void singleFlight_callerJoiningAsFailureIsDelivered_shouldStartNewFlight() {
+        // Arrange
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+        // Act: the retry subscribes while the failed flight is still handing out its error
+        String retried = singleFlight.execute("A", () -> Mono.<String>error(new IllegalStateException()))
+                .onErrorResume(e -> singleFlight.execute("A", () -> Mono.just("ok")))
+                .block();
+
+        // Assert
+        assertEquals("ok", retried);
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void resultCache_shouldKeepDeliveredShipmentsLongerThanActiveOnes() {
+        // Arrange
+        TrackingResultCache resultCache = new TrackingResultCache(trackingProperties, new ShipmentStatusClassifier(trackingProperties), new SimpleMeterRegistry());
+        TrackingInfo deliveredInfo = new TrackingInfo();
+        deliveredInfo.setStatus("The item has been delivered");
+        TrackingInfo notDeliveredInfo = new TrackingInfo();
+        notDeliveredInfo.setStatus("Item could not be delivered");
+        TrackingInfoResponse delivered = TrackingInfoResponse.from(deliveredInfo);
+        TrackingInfoResponse notDelivered = TrackingInfoResponse.from(notDeliveredInfo);
+
+        // Act & Assert
+        assertEquals(trackingProperties.getCache().getTerminalTtl(), resultCache.timeToLive(List.of(delivered)));
+        assertEquals(trackingProperties.getCache().getActiveTtl(), resultCache.timeToLive(List.of(delivered, notDelivered)));
+        assertEquals(trackingProperties.getCache().getEmptyTtl(), resultCache.timeToLive(List.of()));
+    }
+
+    @Test
+    void trackBatch_tooManyItems_shouldFailWithoutTracking() {
+        // Arrange
+        trackingProperties.getBatch().setMaxItems(1);
+        List<BatchTrackingItem> items = List.of(
+                new BatchTrackingItem("bpost", "A", "2340"),
+                new BatchTrackingItem("bpost", "B", "2340"));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> trackingService.trackBatch(items).block());
+        verify(strategy, never()).trackAsync(any(TrackingRequest.class));
+    }
+
+    @Test
+    void trackBatch_missingBatchOrItem_shouldFailWithoutTracking() {
+        // Arrange
+        List<BatchTrackingItem> items = Arrays.asList(new BatchTrackingItem("bpost", "A", "2340"), null);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> trackingService.trackBatch(null).block());
+        assertThrows(IllegalArgumentException.class, () -> trackingService.trackBatch(items).block());
+        verify(strategy, never()).trackAsync(any(TrackingRequest.class));
+    }
+
+}
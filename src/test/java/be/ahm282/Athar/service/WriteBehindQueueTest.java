@@ -0,0 +1,79 @@
+package be.ahm282.Athar.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link WriteBehindQueue}.
+ */
+class WriteBehindQueueTest {
+
+    @Test
+    void close_shouldFlushEverythingQueued() {
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        WriteBehindQueue<Integer> queue = new WriteBehindQueue<>("test", 100, 10, Duration.ofSeconds(1), written::addAll, new SimpleMeterRegistry());
+
+        assertEquals(List.of(), queue.offerAll(List.of(1, 2, 3)));
+        queue.close();
+
+        assertEquals(List.of(1, 2, 3), written);
+        assertEquals(List.of(4), queue.offerAll(List.of(4)));
+    }
+
+    @Test
+    void write_pendingItems_shouldBeGroupedWhileWriterIsBusy() throws InterruptedException {
+        CountDownLatch firstWriteStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstWrite = new CountDownLatch(1);
+        List<List<Integer>> groups = new CopyOnWriteArrayList<>();
+
+        WriteBehindQueue<Integer> queue = new WriteBehindQueue<>("test", 100, 10, Duration.ofSeconds(1), group -> {
+            groups.add(List.copyOf(group));
+            firstWriteStarted.countDown();
+            try {
+                releaseFirstWrite.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, new SimpleMeterRegistry());
+
+        queue.offerAll(List.of(1));
+        firstWriteStarted.await();
+        queue.offerAll(List.of(2, 3, 4));
+        releaseFirstWrite.countDown();
+        queue.close();
+
+        assertEquals(List.of(List.of(1), List.of(2, 3, 4)), groups);
+    }
+
+    @Test
+    void write_failingGroup_shouldRetryItemsOneByOne() {
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        CountDownLatch queued = new CountDownLatch(1);
+
+        WriteBehindQueue<Integer> queue = new WriteBehindQueue<>("test", 100, 10, Duration.ofSeconds(1), group -> {
+            try {
+                queued.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (group.contains(2)) {
+                throw new IllegalStateException("Constraint violation");
+            }
+            written.addAll(group);
+        }, new SimpleMeterRegistry());
+
+        queue.offerAll(List.of(1, 2, 3));
+        queued.countDown();
+        queue.close();
+
+        assertEquals(List.of(1, 3), written);
+    }
+
+}
@@ -0,0 +1,183 @@
+package be.ahm282.Athar.strategy;
+
+import be.ahm282.Athar.client.BpostClient;
+import be.ahm282.Athar.client.UpstreamUnavailableException;
+import be.ahm282.Athar.config.TrackingProperties;
+import be.ahm282.Athar.domain.TrackingEvent;
+import be.ahm282.Athar.domain.TrackingInfo;
+import be.ahm282.Athar.dto.TrackingRequest;
+import be.ahm282.Athar.repository.ShipmentArchiveRepository;
+import be.ahm282.Athar.repository.TrackingEventRepository;
+import be.ahm282.Athar.repository.TrackingInfoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests of {@link BpostTrackingStrategy} against the SQLite database, with only Bpost mocked:
+ * <ul>
+ *     <li>a write-behind group that fails after saving a new shipment is retried item by item, and stores it</li>
+ *     <li>an archived shipment is served from the archive when Bpost is unavailable</li>
+ * </ul>
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:sqlite:./target/persistence-test.db")
+class BpostTrackingStrategyPersistenceTest {
+
+    @Autowired
+    private TrackingInfoRepository trackingInfoRepository;
+
+    @Autowired
+    private TrackingEventRepository trackingEventRepository;
+
+    @Autowired
+    private ShipmentArchiveRepository shipmentArchiveRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void writeBehind_failedGroupWithNewShipment_shouldStoreItOnRetry() throws InterruptedException {
+        // Arrange
+        String blocking = newTrackingNumber();
+        String newShipment = newTrackingNumber();
+        String existingShipment = newTrackingNumber();
+
+        BpostClient bpostClient = mock(BpostClient.class);
+        when(bpostClient.fetchTrackingData(eq(blocking), anyString())).thenReturn(payload(item(blocking, event("2023-12-01", "Received"))));
+        when(bpostClient.fetchTrackingData(eq(existingShipment), anyString())).thenReturn(
+                payload(item(existingShipment, event("2023-12-01", "Received"))),
+                payload(item(newShipment, event("2023-12-01", "Received")),
+                        item(existingShipment, event("2023-12-02", "Sorted"), event("2023-12-01", "Received"))));
+
+        new BpostTrackingStrategy(bpostClient, trackingInfoRepository, trackingEventRepository, shipmentArchiveRepository,
+                transactionTemplate, new TrackingProperties(), new SimpleMeterRegistry())
+                .track(new TrackingRequest(existingShipment, "2340"));
+
+        // The writer holds the first shipment until both items of the second response are queued, so they form a group
+        CountDownLatch groupQueued = new CountDownLatch(1);
+        TrackingInfoRepository shipments = mock(TrackingInfoRepository.class, delegatesTo(trackingInfoRepository));
+        doAnswer(invocation -> {
+            Collection<String> trackingNumbers = invocation.getArgument(0);
+            if (trackingNumbers.contains(blocking)) {
+                groupQueued.await();
+            }
+            return trackingInfoRepository.findAllByTrackingNumberIn(trackingNumbers);
+        }).when(shipments).findAllByTrackingNumberIn(anyCollection());
+
+        // The group fails once the new shipment is saved, when the event of the existing one is inserted
+        TrackingEventRepository events = mock(TrackingEventRepository.class, delegatesTo(trackingEventRepository));
+        doThrow(new IllegalStateException("Constraint violation"))
+                .doAnswer(invocation -> {
+                    trackingEventRepository.insertAll(invocation.getArgument(0));
+                    return null;
+                })
+                .when(events).insertAll(anyList());
+
+        TrackingProperties trackingProperties = new TrackingProperties();
+        trackingProperties.getWriteBehind().setEnabled(true);
+        BpostTrackingStrategy strategy = new BpostTrackingStrategy(bpostClient, shipments, events, shipmentArchiveRepository,
+                transactionTemplate, trackingProperties, new SimpleMeterRegistry());
+
+        // Act
+        strategy.track(new TrackingRequest(blocking, "2340"));
+        strategy.track(new TrackingRequest(existingShipment, "2340"));
+        groupQueued.countDown();
+        strategy.destroy();
+
+        // Assert
+        verify(events, times(2)).insertAll(anyList());
+        assertTrue(trackingInfoRepository.findByTrackingNumber(newShipment).isPresent());
+        assertEquals(List.of("Received", "Sorted"), storedDescriptions(existingShipment));
+        assertEquals(List.of("Received"), storedDescriptions(newShipment));
+    }
+
+    @Test
+    void trackAsync_upstreamUnavailableForArchivedShipment_shouldServeArchivedCopy() {
+        // Arrange
+        String trackingNumber = newTrackingNumber();
+        BpostClient bpostClient = mock(BpostClient.class);
+        when(bpostClient.fetchTrackingData(eq(trackingNumber), anyString())).thenReturn(
+                payload(item(trackingNumber, event("2023-12-02", "Delivered"), event("2023-12-01", "Received"))));
+        when(bpostClient.fetchTrackingDataIfModified(eq(trackingNumber), anyString(), any()))
+                .thenReturn(Mono.error(new UpstreamUnavailableException("Bpost circuit breaker is open")));
+
+        BpostTrackingStrategy strategy = new BpostTrackingStrategy(bpostClient, trackingInfoRepository, trackingEventRepository,
+                shipmentArchiveRepository, transactionTemplate, new TrackingProperties(), new SimpleMeterRegistry());
+        UUID id = strategy.track(new TrackingRequest(trackingNumber, "2340")).get(0).getId();
+
+        // Moved like the archiver does, which also evicts the shipment from the second-level cache
+        transactionTemplate.executeWithoutResult(status -> shipmentArchiveRepository.moveToArchive(List.of(toBytes(id)), LocalDateTime.now()));
+        entityManagerFactory.getCache().evictAll();
+
+        // Act
+        List<TrackingInfo> results = strategy.trackAsync(new TrackingRequest(trackingNumber, "2340")).block();
+
+        // Assert
+        assertTrue(trackingInfoRepository.findCachedByTrackingNumber(trackingNumber).isEmpty());
+        assertNotNull(results);
+        assertEquals(1, results.size());
+        assertEquals(id, results.get(0).getId());
+        assertEquals(List.of("Received", "Delivered"), results.get(0).getEvents().stream().map(TrackingEvent::getDescription).toList());
+    }
+
+    private List<String> storedDescriptions(String trackingNumber) {
+        return trackingInfoRepository.findCachedByTrackingNumber(trackingNumber).orElseThrow().getEvents().stream()
+                .map(TrackingEvent::getDescription)
+                .toList();
+    }
+
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    private static String newTrackingNumber() {
+        return "TEST" + UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase();
+    }
+
+    private static String payload(String... items) {
+        return """
+                { "items": [%s] }
+                """.formatted(String.join(",", items));
+    }
+
+    private static String item(String trackingNumber, String... events) {
+        return """
+                {
+                    "itemCode": "%s",
+                    "receiver": { "name": "RECEIVER", "postcode": "2340", "countryCode": "BE" },
+                    "sender": { "name": "SENDER", "postcode": "1934", "countryCode": "BE" },
+                    "events": [%s]
+                }
+                """.formatted(trackingNumber, String.join(",", events));
+    }
+
+    private static String event(String date, String description) {
+        return """
+                { "date": "%s", "time": "10:00:00", "location": { "locationName": "Brussels" },
+                  "key": { "EN": { "description": "%s" } }, "irregularity": false }
+                """.formatted(date, description);
+    }
+
+}
@@ -13,7 +13,7 @@
  * Requires postcode and tracking number (throws on missing values)
  * Saves new TrackingInfo for first-time tracking
  * Updates existing TrackingInfo with:
- *    - New events only (avoids duplicates)
+ *    - Its events handed to the store, which ignores the ones it already has, without loading the history
  *    - Updated status
  * Handles edge JSON responses:
  *    - Empty item array → returns empty list
@@ -24,8 +24,19 @@
  *    - Sender and receiver address fields
  *    - TrackingEvent fields including irregularities
  * Processes multi-item JSON responses (returns multiple entities)
+ * Loads all affected shipments in one query and writes new and changed ones in one call
  * Ensures event–parent linkage (TrackingEvent → TrackingInfo)
  * Returns saved entity containing DB-generated UUID
+ * Reactive trackAsync path:
+ *    - Fetches through the non-blocking client and persists the result
+ *    - Surfaces validation failures as an error signal instead of throwing
+ *    - Returns the stored shipment without parsing or saving when Bpost reports no change
+ *    - Refetches unconditionally when the unchanged shipment is missing from the database
+ *    - Decodes bodies split across arbitrary network buffers exactly like the String path
+ *    - Serves the stored shipment while Bpost is unavailable, and only errors when nothing is stored
+ * Write-behind mode returns the parsed shipments and persists them on the background writer, flushed on close
+ * Compressed event storage appends to the history, and returns a new shipment with its parsed events
+ * Lists events oldest first, whether parsed, read from the store or decoded from the history
  *----------------------
  * Suggested Additions in the future:
  * ---------------------
@@ -41,20 +52,36 @@
 package be.ahm282.Athar.strategy;
 
 import be.ahm282.Athar.client.BpostClient;
+import be.ahm282.Athar.client.UpstreamUnavailableException;
+import be.ahm282.Athar.config.TrackingProperties;
+import be.ahm282.Athar.domain.EventFingerprint;
+import be.ahm282.Athar.domain.EventHistory;
 import be.ahm282.Athar.domain.TrackingEvent;
 import be.ahm282.Athar.domain.TrackingInfo;
 import be.ahm282.Athar.dto.TrackingRequest;
+import be.ahm282.Athar.repository.ShipmentArchiveRepository;
+import be.ahm282.Athar.repository.TrackingEventRepository;
 import be.ahm282.Athar.repository.TrackingInfoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.transaction.support.TransactionOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -68,12 +95,19 @@ public class BpostTrackingStrategyTest {
     @Mock
     private TrackingInfoRepository trackingInfoRepository;
 
+    @Mock
+    private TrackingEventRepository trackingEventRepository;
+
+    @Mock
+    private ShipmentArchiveRepository shipmentArchiveRepository;
+
     private BpostTrackingStrategy strategy;
 
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
-        strategy = new BpostTrackingStrategy(bpostClient, trackingInfoRepository);
+        strategy = new BpostTrackingStrategy(bpostClient, trackingInfoRepository, trackingEventRepository, shipmentArchiveRepository, TransactionOperations.withoutTransaction(),
+                new TrackingProperties(), new SimpleMeterRegistry());
     }
 
     @Test
@@ -121,36 +155,40 @@ public class BpostTrackingStrategyTest {
         TrackingRequest request = new TrackingRequest("00164300796602406833", "2340");
 
         when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(mockJson);
-        when(trackingInfoRepository.findByTrackingNumber("00164300796602406833")).thenReturn(Optional.empty());
-        when(trackingInfoRepository.save(any(TrackingInfo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of());
+        when(trackingInfoRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         List<TrackingInfo> result = strategy.track(request);
 
         // Assert
         assertEquals(1, result.size());
-        verify(trackingInfoRepository).save(any(TrackingInfo.class));
-        verify(trackingInfoRepository).findByTrackingNumber("00164300796602406833");
+        verify(trackingInfoRepository).saveAll(anyList());
+        verify(trackingInfoRepository).findAllByTrackingNumberIn(Set.of("00164300796602406833"));
     }
 
     @Test
-    void track_existingShipment_shouldUpdateWithNewEvents() {
+    void track_existingShipment_shouldInsertEventsWithoutLoadingHistory() {
         // Arrange
         String mockJson = createMockJsonWithMultipleEvents();
         TrackingRequest request = new TrackingRequest("00164300796602406833", "2340");
 
         TrackingInfo existingInfo = createExistingTrackingInfo();
+        existingInfo.setId(UUID.randomUUID());
         when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(mockJson);
-        when(trackingInfoRepository.findByTrackingNumber("00164300796602406833")).thenReturn(Optional.of(existingInfo));
-        when(trackingInfoRepository.save(any(TrackingInfo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of(existingInfo));
+        when(trackingInfoRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         List<TrackingInfo> result = strategy.track(request);
 
         // Assert
         assertEquals(1, result.size());
-        verify(trackingInfoRepository).save(existingInfo);
-        assertTrue(existingInfo.getEvents().size() > 1); // Should have added new events
+        assertEquals(existingInfo.getId(), result.get(0).getId());
+        assertTrue(result.get(0).getEvents().size() > 1);
+        assertEquals(1, existingInfo.getEvents().size()); // Stored history is neither loaded nor touched
+        verify(trackingInfoRepository, never()).findCachedByTrackingNumber(anyString());
+        verify(trackingEventRepository).insertAll(result.get(0).getEvents());
     }
 
     @Test
@@ -163,8 +201,8 @@ public class BpostTrackingStrategyTest {
         existingInfo.setStatus("Old Status");
 
         when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(mockJson);
-        when(trackingInfoRepository.findByTrackingNumber("00164300796602406833")).thenReturn(Optional.of(existingInfo));
-        when(trackingInfoRepository.save(any(TrackingInfo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of(existingInfo));
+        when(trackingInfoRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         List<TrackingInfo> result = strategy.track(request);
@@ -173,29 +211,60 @@ public class BpostTrackingStrategyTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("Delivered", existingInfo.getStatus());
-        verify(trackingInfoRepository).save(existingInfo);
+        verify(trackingInfoRepository).saveAll(List.of(existingInfo));
     }
 
     @Test
-    void track_existingShipment_shouldNotDuplicateEvents() {
+    void track_existingShipment_shouldInsertNothingWhenEveryEventIsStored() {
         // Arrange
         String mockJson = createMockJsonWithSingleItem();
         TrackingRequest request = new TrackingRequest("00164300796602406833", "2340");
 
         TrackingInfo existingInfo = createExistingTrackingInfoWithSameEvent();
+        existingInfo.setId(UUID.randomUUID());
+        existingInfo.setStatus("Confirmation of preparation of the shipment received");
+        long storedFingerprint = EventFingerprint.of("2023-12-01", "10:00:00", "Confirmation of preparation of the shipment received", "Brussels");
 
         when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(mockJson);
-        when(trackingInfoRepository.findByTrackingNumber("00164300796602406833")).thenReturn(Optional.of(existingInfo));
-        when(trackingInfoRepository.save(any(TrackingInfo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of(existingInfo));
+        when(trackingEventRepository.findFingerprintsByTrackingInfoIdIn(Set.of(existingInfo.getId())))
+                .thenReturn(List.of(storedFingerprint(existingInfo.getId(), storedFingerprint)));
 
         // Act
         List<TrackingInfo> result = strategy.track(request);
 
         // Assert
-        assertNotNull(result);
         assertEquals(1, result.size());
-        assertEquals(1, existingInfo.getEvents().size()); // Should not duplicate
-        verify(trackingInfoRepository).save(existingInfo);
+        assertEquals(existingInfo.getId(), result.get(0).getId());
+        verify(trackingEventRepository, never()).insertAll(anyList());
+        verify(trackingInfoRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void track_existingShipment_shouldInsertOnlyEventsNotStoredYet() {
+        // Arrange
+        String mockJson = createMockJsonWithMultipleEvents();
+        TrackingRequest request = new TrackingRequest("00164300796602406833", "2340");
+
+        TrackingInfo existingInfo = createExistingTrackingInfo();
+        existingInfo.setId(UUID.randomUUID());
+        when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(mockJson);
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of(existingInfo));
+        when(trackingInfoRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<TrackingEvent> parsedEvents = strategy.track(request).get(0).getEvents();
+        TrackingEvent storedEvent = parsedEvents.get(parsedEvents.size() - 1);
+        when(trackingEventRepository.findFingerprintsByTrackingInfoIdIn(Set.of(existingInfo.getId())))
+                .thenReturn(List.of(storedFingerprint(existingInfo.getId(), storedEvent.getFingerprint())));
+        clearInvocations(trackingEventRepository);
+
+        // Act
+        strategy.track(request);
+
+        // Assert
+        verify(trackingEventRepository).insertAll(argThat((List<TrackingEvent> events) -> events.size() == parsedEvents.size() - 1
+                && events.stream().noneMatch(event -> event.getFingerprint() == storedEvent.getFingerprint())
+                && events.stream().allMatch(event -> event.getTrackingInfo() == existingInfo)));
     }
 
     @Test
@@ -210,8 +279,8 @@ public class BpostTrackingStrategyTest {
         savedInfo.setTrackingNumber("00164300796602406833");
 
         when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(mockJson);
-        when(trackingInfoRepository.findByTrackingNumber("00164300796602406833")).thenReturn(Optional.empty());
-        when(trackingInfoRepository.save(any(TrackingInfo.class))).thenReturn(savedInfo);
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of());
+        when(trackingInfoRepository.saveAll(anyList())).thenReturn(List.of(savedInfo));
 
         // Act
         List<TrackingInfo> result = strategy.track(request);
@@ -231,7 +300,7 @@ public class BpostTrackingStrategyTest {
             """;
 
         when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(emptyJson);
-        when(trackingInfoRepository.findByTrackingNumber(anyString())).thenReturn(Optional.empty());
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of());
 
         TrackingRequest request = new TrackingRequest("12345", "1000");
 
@@ -252,7 +321,7 @@ public class BpostTrackingStrategyTest {
             """;
 
         when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(malformedJson);
-        when(trackingInfoRepository.findByTrackingNumber(anyString())).thenReturn(Optional.empty());
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of());
 
         TrackingRequest request = new TrackingRequest("12345", "1000");
 
@@ -286,8 +355,8 @@ public class BpostTrackingStrategyTest {
         TrackingRequest request = new TrackingRequest("00164300796602406833", "2340");
 
         when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(mockJson);
-        when(trackingInfoRepository.findByTrackingNumber(anyString())).thenReturn(Optional.empty());
-        when(trackingInfoRepository.save(any(TrackingInfo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of());
+        when(trackingInfoRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         List<TrackingInfo> result = strategy.track(request);
@@ -303,8 +372,8 @@ public class BpostTrackingStrategyTest {
         TrackingRequest request = new TrackingRequest("00164300796602406833", "2340");
 
         when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(mockJson);
-        when(trackingInfoRepository.findByTrackingNumber(anyString())).thenReturn(Optional.empty());
-        when(trackingInfoRepository.save(any(TrackingInfo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of());
+        when(trackingInfoRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         List<TrackingInfo> result = strategy.track(request);
@@ -325,8 +394,8 @@ public class BpostTrackingStrategyTest {
         TrackingRequest request = new TrackingRequest("00164300796602406833", "2340");
 
         when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(mockJson);
-        when(trackingInfoRepository.findByTrackingNumber(anyString())).thenReturn(Optional.empty());
-        when(trackingInfoRepository.save(any(TrackingInfo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of());
+        when(trackingInfoRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         List<TrackingInfo> result = strategy.track(request);
@@ -347,8 +416,8 @@ public class BpostTrackingStrategyTest {
         TrackingRequest request = new TrackingRequest("00164300796602406833", "2340");
 
         when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(mockJson);
-        when(trackingInfoRepository.findByTrackingNumber(anyString())).thenReturn(Optional.empty());
-        when(trackingInfoRepository.save(any(TrackingInfo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of());
+        when(trackingInfoRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         List<TrackingInfo> result = strategy.track(request);
@@ -372,8 +441,8 @@ public class BpostTrackingStrategyTest {
         TrackingRequest request = new TrackingRequest("00164300796602406833", "2340");
 
         when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(mockJson);
-        when(trackingInfoRepository.findByTrackingNumber(anyString())).thenReturn(Optional.empty());
-        when(trackingInfoRepository.save(any(TrackingInfo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of());
+        when(trackingInfoRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         List<TrackingInfo> result = strategy.track(request);
@@ -393,14 +462,14 @@ public class BpostTrackingStrategyTest {
         TrackingInfo existingInfo = createExistingTrackingInfo();
 
         when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(mockJson);
-        when(trackingInfoRepository.findByTrackingNumber("00164300796602406833")).thenReturn(Optional.of(existingInfo));
-        when(trackingInfoRepository.save(any(TrackingInfo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of(existingInfo));
+        when(trackingInfoRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
-        strategy.track(request);
+        List<TrackingInfo> result = strategy.track(request);
 
         // Assert
-        existingInfo.getEvents().forEach(event -> assertEquals(existingInfo, event.getTrackingInfo()));
+        result.get(0).getEvents().forEach(event -> assertSame(existingInfo, event.getTrackingInfo()));
     }
 
     @Test
@@ -410,20 +479,386 @@ public class BpostTrackingStrategyTest {
         TrackingRequest request = new TrackingRequest("00164300796602406833", "2340");
 
         when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(mockJson);
-        when(trackingInfoRepository.findByTrackingNumber(anyString())).thenReturn(Optional.empty());
-        when(trackingInfoRepository.save(any(TrackingInfo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of());
+        when(trackingInfoRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         List<TrackingInfo> result = strategy.track(request);
 
         // Assert
         assertEquals(2, result.size());
-        verify(trackingInfoRepository, times(2)).save(any(TrackingInfo.class));
+        verify(trackingInfoRepository).saveAll(argThat((List<TrackingInfo> infos) -> infos.size() == 2));
+    }
+
+    @Test
+    void track_multipleItems_shouldLoadOnceAndWriteOnlyChangedInOneCall() {
+        // Arrange
+        String mockJson = createMockJsonWithMultipleItems();
+        TrackingRequest request = new TrackingRequest("00164300796602406833", "2340");
+
+        TrackingInfo existingInfo = createExistingTrackingInfo();
+        existingInfo.setId(UUID.randomUUID());
+        when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(mockJson);
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of(existingInfo));
+        when(trackingInfoRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        List<TrackingInfo> result = strategy.track(request);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals(existingInfo.getId(), result.get(0).getId());
+        assertEquals("00164300796602406834", result.get(1).getTrackingNumber());
+        verify(trackingInfoRepository).findAllByTrackingNumberIn(Set.of("00164300796602406833", "00164300796602406834"));
+        verify(trackingInfoRepository).saveAll(List.of(existingInfo, result.get(1)));
+        verify(trackingInfoRepository, never()).findByTrackingNumber(anyString());
+        verify(trackingInfoRepository, never()).save(any(TrackingInfo.class));
+    }
+
+    @Test
+    void trackAsync_newShipment_shouldFetchWithoutBlockingClientAndSave() {
+        // Arrange
+        String mockJson = createMockJsonWithSingleItem();
+        TrackingRequest request = new TrackingRequest("00164300796602406833", "2340");
+
+        stubConditionalFetch(mockJson);
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of());
+        when(trackingInfoRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        List<TrackingInfo> result = strategy.trackAsync(request).block();
+
+        // Assert
+        assertNotNull(result);
+        assertEquals(1, result.size());
+        verify(bpostClient, never()).fetchTrackingData(anyString(), anyString());
+        verify(trackingInfoRepository).saveAll(anyList());
+    }
+
+    @Test
+    void trackAsync_missingPostcode_shouldSignalErrorWithoutFetching() {
+        // Arrange
+        TrackingRequest request = new TrackingRequest("3305518165683602", null);
+
+        // Act
+        Mono<List<TrackingInfo>> result = strategy.trackAsync(request);
+
+        // Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, result::block);
+        assertEquals("Postcode is required!", exception.getMessage());
+        verifyNoInteractions(bpostClient);
+    }
+
+    @Test
+    void trackAsync_unchangedShipment_shouldReturnStoredWithoutSaving() {
+        // Arrange
+        TrackingRequest request = new TrackingRequest("00164300796602406833", "2340");
+        TrackingInfo storedInfo = createExistingTrackingInfo();
+
+        when(bpostClient.fetchTrackingDataIfModified(anyString(), anyString(), any())).thenReturn(Mono.empty());
+        when(trackingInfoRepository.findCachedByTrackingNumber("00164300796602406833")).thenReturn(Optional.of(storedInfo));
+
+        // Act
+        List<TrackingInfo> result = strategy.trackAsync(request).block();
+
+        // Assert
+        assertEquals(List.of(storedInfo), result);
+        verify(trackingInfoRepository, never()).saveAll(anyList());
+        verify(bpostClient, never()).fetchTrackingDataStream(anyString(), anyString());
+    }
+
+    @Test
+    void trackAsync_unchangedButNotStored_shouldRefetchUnconditionally() {
+        // Arrange
+        String mockJson = createMockJsonWithSingleItem();
+        TrackingRequest request = new TrackingRequest("00164300796602406833", "2340");
+
+        when(bpostClient.fetchTrackingDataIfModified(anyString(), anyString(), any())).thenReturn(Mono.empty());
+        when(bpostClient.fetchTrackingDataStream(anyString(), anyString())).thenReturn(chunked(mockJson));
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of());
+        when(trackingInfoRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        List<TrackingInfo> result = strategy.trackAsync(request).block();
+
+        // Assert
+        assertNotNull(result);
+        assertEquals(1, result.size());
+        verify(bpostClient).forgetValidators("00164300796602406833", "2340");
+        verify(trackingInfoRepository).saveAll(anyList());
+    }
+
+    @Test
+    void trackAsync_chunkedBody_shouldDecodeLikeStringPath() {
+        // Arrange
+        String mockJson = createMockJsonWithMultipleItems();
+        TrackingRequest request = new TrackingRequest("00164300796602406833", "2340");
+
+        stubConditionalFetch(mockJson);
+        when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(mockJson);
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of());
+        when(trackingInfoRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        List<TrackingInfo> streamed = strategy.trackAsync(request).block();
+        List<TrackingInfo> buffered = strategy.track(request);
+
+        // Assert
+        assertNotNull(streamed);
+        assertEquals(buffered.size(), streamed.size());
+        for (int i = 0; i < buffered.size(); i++) {
+            TrackingInfo expected = buffered.get(i);
+            TrackingInfo actual = streamed.get(i);
+            assertEquals(expected.getTrackingNumber(), actual.getTrackingNumber());
+            assertEquals(expected.getStatus(), actual.getStatus());
+            assertEquals(expected.getReceiverName(), actual.getReceiverName());
+            assertEquals(expected.getSenderMunicipality(), actual.getSenderMunicipality());
+            assertEquals(expected.getEvents().size(), actual.getEvents().size());
+            assertEquals(expected.getEvents().get(0).getLocation(), actual.getEvents().get(0).getLocation());
+            assertEquals(expected.getEvents().get(0).getDescription(), actual.getEvents().get(0).getDescription());
+            assertSame(actual, actual.getEvents().get(0).getTrackingInfo());
+        }
+    }
+
+    @Test
+    void trackAsync_invalidJson_shouldSignalParseError() {
+        // Arrange
+        stubConditionalFetch("{ invalid json }");
+        TrackingRequest request = new TrackingRequest("12345", "1000");
+
+        // Act
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> strategy.trackAsync(request).block());
+
+        // Assert
+        assertEquals("Failed to parse tracking JSON", exception.getMessage());
+        verify(bpostClient).forgetValidators("12345", "1000");
+    }
+
+    @Test
+    void trackAsync_upstreamUnavailable_shouldServeStoredShipment() {
+        // Arrange
+        TrackingRequest request = new TrackingRequest("00164300796602406833", "2340");
+        TrackingInfo storedInfo = createExistingTrackingInfo();
+
+        when(bpostClient.fetchTrackingDataIfModified(anyString(), anyString(), any()))
+                .thenReturn(Mono.error(new UpstreamUnavailableException("Circuit breaker for bpost is open")));
+        when(trackingInfoRepository.findCachedByTrackingNumber("00164300796602406833")).thenReturn(Optional.of(storedInfo));
+
+        // Act
+        List<TrackingInfo> result = strategy.trackAsync(request).block();
+
+        // Assert
+        assertEquals(List.of(storedInfo), result);
+        verify(bpostClient, never()).forgetValidators(anyString(), anyString());
+        verify(bpostClient, never()).forgetValidators(anyString());
+    }
+
+    @Test
+    void trackAsync_upstreamUnavailableAndArchived_shouldServeArchivedShipment() {
+        // Arrange
+        TrackingRequest request = new TrackingRequest("00164300796602406833", "2340");
+        TrackingInfo archivedInfo = createExistingTrackingInfo();
+
+        when(bpostClient.fetchTrackingDataIfModified(anyString(), anyString(), any()))
+                .thenReturn(Mono.error(new UpstreamUnavailableException("Circuit breaker for bpost is open")));
+        when(trackingInfoRepository.findCachedByTrackingNumber("00164300796602406833")).thenReturn(Optional.empty());
+        when(shipmentArchiveRepository.findByTrackingNumber("00164300796602406833")).thenReturn(Optional.of(archivedInfo));
+
+        // Act
+        List<TrackingInfo> result = strategy.trackAsync(request).block();
+
+        // Assert
+        assertEquals(List.of(archivedInfo), result);
+    }
+
+    @Test
+    void trackAsync_upstreamUnavailableAndNotStored_shouldSignalError() {
+        // Arrange
+        TrackingRequest request = new TrackingRequest("12345", "1000");
+
+        when(bpostClient.fetchTrackingDataIfModified(anyString(), anyString(), any()))
+                .thenReturn(Mono.error(new UpstreamUnavailableException("Rate limit for bpost exceeded")));
+        when(trackingInfoRepository.findCachedByTrackingNumber("12345")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(UpstreamUnavailableException.class, () -> strategy.trackAsync(request).block());
+    }
+
+    @Test
+    void track_writeBehind_shouldReturnParsedAndPersistOnClose() {
+        // Arrange
+        TrackingProperties trackingProperties = new TrackingProperties();
+        trackingProperties.getWriteBehind().setEnabled(true);
+        BpostTrackingStrategy writeBehindStrategy = new BpostTrackingStrategy(bpostClient, trackingInfoRepository, trackingEventRepository,
+                shipmentArchiveRepository, TransactionOperations.withoutTransaction(), trackingProperties, new SimpleMeterRegistry());
+
+        TrackingInfo existingInfo = createExistingTrackingInfo();
+        existingInfo.setId(UUID.randomUUID());
+        List<TrackingInfo> written = new ArrayList<>();
+        when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(createMockJsonWithMultipleItems());
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of(existingInfo));
+        when(trackingInfoRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<TrackingInfo> infos = invocation.getArgument(0);
+            written.addAll(infos);
+            return infos;
+        });
+
+        // Act
+        List<TrackingInfo> result = writeBehindStrategy.track(new TrackingRequest("00164300796602406833", "2340"));
+        writeBehindStrategy.destroy();
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals("00164300796602406833", result.get(0).getTrackingNumber());
+        verify(trackingInfoRepository, atLeastOnce()).saveAll(anyList());
+        verify(trackingInfoRepository, never()).save(any(TrackingInfo.class));
+        // The writer worked on copies: the returned shipments are left as parsed
+        written.forEach(info -> result.forEach(returned -> assertNotSame(returned, info)));
+        assertNull(result.get(0).getId());
+        result.forEach(info -> info.getEvents().forEach(event -> assertSame(info, event.getTrackingInfo())));
+    }
+
+    @Test
+    void track_compressedEventStorage_shouldAppendToHistoryInsteadOfInsertingRows() {
+        // Arrange
+        TrackingProperties trackingProperties = new TrackingProperties();
+        trackingProperties.setEventStorage(TrackingProperties.EventStorage.COMPRESSED);
+        BpostTrackingStrategy compressedStrategy = new BpostTrackingStrategy(bpostClient, trackingInfoRepository, trackingEventRepository,
+                shipmentArchiveRepository, TransactionOperations.withoutTransaction(), trackingProperties, new SimpleMeterRegistry());
+
+        TrackingInfo existingInfo = createExistingTrackingInfo();
+        existingInfo.setEventHistory(EventHistory.encode(existingInfo.getEvents()));
+        when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(createMockJsonWithMultipleEvents());
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of(existingInfo));
+        when(trackingInfoRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        List<TrackingInfo> result = compressedStrategy.track(new TrackingRequest("00164300796602406833", "2340"));
+
+        // Assert
+        assertTrue(result.get(0).getEvents().size() > 1);
+        List<TrackingEvent> history = EventHistory.decode(existingInfo.getEventHistory());
+        assertEquals("Package received", history.get(0).getDescription());
+        assertEquals(result.get(0).getEvents().size() + 1, history.size());
+        verify(trackingInfoRepository).saveAll(List.of(existingInfo));
+        verifyNoInteractions(trackingEventRepository);
+    }
+
+    @Test
+    void track_compressedEventStorage_newShipment_shouldReturnParsedEvents() {
+        // Arrange
+        TrackingProperties trackingProperties = new TrackingProperties();
+        trackingProperties.setEventStorage(TrackingProperties.EventStorage.COMPRESSED);
+        BpostTrackingStrategy compressedStrategy = new BpostTrackingStrategy(bpostClient, trackingInfoRepository, trackingEventRepository,
+                shipmentArchiveRepository, TransactionOperations.withoutTransaction(), trackingProperties, new SimpleMeterRegistry());
+
+        List<TrackingInfo> written = new ArrayList<>();
+        when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(createMockJsonWithMultipleEvents());
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of());
+        when(trackingInfoRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<TrackingInfo> infos = invocation.getArgument(0);
+            infos.forEach(info -> info.setId(UUID.randomUUID()));
+            written.addAll(infos);
+            return infos;
+        });
+
+        // Act
+        List<TrackingInfo> result = compressedStrategy.track(new TrackingRequest("00164300796602406833", "2340"));
+
+        // Assert
+        assertEquals(1, written.size());
+        TrackingInfo row = written.get(0);
+        assertTrue(row.getEvents().isEmpty());
+        assertNotSame(row, result.get(0));
+        assertEquals(row.getId(), result.get(0).getId());
+        assertFalse(result.get(0).getEvents().isEmpty());
+        assertEquals(result.get(0).getEvents().size(), EventHistory.decode(row.getEventHistory()).size());
+        verifyNoInteractions(trackingEventRepository);
+    }
+
+    @Test
+    void track_multipleEvents_shouldListEventsOldestFirst() {
+        // Arrange
+        when(bpostClient.fetchTrackingData(anyString(), anyString())).thenReturn(createMockJsonWithMultipleEvents());
+        when(trackingInfoRepository.findAllByTrackingNumberIn(anyCollection())).thenReturn(List.of());
+        when(trackingInfoRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        List<TrackingInfo> result = strategy.track(new TrackingRequest("00164300796602406833", "2340"));
+
+        // Assert
+        TrackingInfo info = result.get(0);
+        assertEquals("Package delivered", info.getStatus());
+        assertEquals(List.of("Confirmation of preparation of the shipment received", "Package delivered"),
+                info.getEvents().stream().map(TrackingEvent::getDescription).toList());
+    }
+
+    @Test
+    void trackAsync_compressedEventStorage_shouldServeHistoryOldestFirst() {
+        // Arrange
+        TrackingProperties trackingProperties = new TrackingProperties();
+        trackingProperties.setEventStorage(TrackingProperties.EventStorage.COMPRESSED);
+        BpostTrackingStrategy compressedStrategy = new BpostTrackingStrategy(bpostClient, trackingInfoRepository, trackingEventRepository,
+                shipmentArchiveRepository, TransactionOperations.withoutTransaction(), trackingProperties, new SimpleMeterRegistry());
+
+        TrackingInfo storedInfo = createExistingTrackingInfo();
+        TrackingEvent earlier = storedInfo.getEvents().get(0);
+        TrackingEvent later = new TrackingEvent();
+        later.setDate("2023-12-01");
+        later.setTime("14:30:00");
+        later.setDescription("Package delivered");
+        // Appended newest first, as Bpost reports them
+        storedInfo.setEventHistory(EventHistory.encode(List.of(later, earlier)));
+
+        when(bpostClient.fetchTrackingDataIfModified(anyString(), anyString(), any())).thenReturn(Mono.empty());
+        when(trackingInfoRepository.findCachedByTrackingNumber("00164300796602406833")).thenReturn(Optional.of(storedInfo));
+
+        // Act
+        List<TrackingInfo> result = compressedStrategy.trackAsync(new TrackingRequest("00164300796602406833", "2340")).block();
+
+        // Assert
+        assertEquals(List.of("Package received", "Package delivered"),
+                result.get(0).getEvents().stream().map(TrackingEvent::getDescription).toList());
     }
 
     //=================================
     // HELPER METHODS
     //=================================
+    @SuppressWarnings("unchecked")
+    private void stubConditionalFetch(String json) {
+        when(bpostClient.fetchTrackingDataIfModified(anyString(), anyString(), any()))
+                .thenAnswer(invocation -> ((Function<Flux<DataBuffer>, Mono<?>>) invocation.getArgument(2)).apply(chunked(json)));
+    }
+
+    /**
+     * Splits the body in small buffers so tokens and multi-byte characters straddle buffer boundaries.
+     */
+    private Flux<DataBuffer> chunked(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        List<DataBuffer> buffers = new ArrayList<>();
+
+        for (int offset = 0; offset < bytes.length; offset += 7) {
+            byte[] chunk = Arrays.copyOfRange(bytes, offset, Math.min(offset + 7, bytes.length));
+            buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(chunk));
+        }
+
+        return Flux.fromIterable(buffers);
+    }
+
+    private static TrackingEventRepository.StoredFingerprint storedFingerprint(UUID trackingInfoId, long fingerprint) {
+        return new TrackingEventRepository.StoredFingerprint() {
+            @Override
+            public UUID getTrackingInfoId() {
+                return trackingInfoId;
+            }
+
+            @Override
+            public long getFingerprint() {
+                return fingerprint;
+            }
+        };
+    }
+
     private TrackingInfo createExistingTrackingInfo() {
         TrackingInfo info = new TrackingInfo();
         info.setTrackingNumber("00164300796602406833");
@@ -0,0 +1,43 @@
+package be.ahm282.Athar.strategy;
+
+import be.ahm282.Athar.domain.EventFingerprint;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link FingerprintSet} and the {@link EventFingerprint} values it holds.
+ */
+class FingerprintSetTest {
+
+    @Test
+    void add_duplicate_shouldReturnFalse() {
+        FingerprintSet set = new FingerprintSet(4);
+
+        assertTrue(set.add(42L));
+        assertFalse(set.add(42L));
+        assertTrue(set.add(0L));
+        assertFalse(set.add(0L));
+    }
+
+    @Test
+    void add_beyondExpectedSize_shouldGrowAndKeepEveryFingerprint() {
+        FingerprintSet set = new FingerprintSet(1);
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(set.add(EventFingerprint.of("2024-03-10", "10:00", "Event " + i, "BRUSSEL X")));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(set.add(EventFingerprint.of("2024-03-10", "10:00", "Event " + i, "BRUSSEL X")));
+        }
+    }
+
+    @Test
+    void fingerprint_shouldSeparateFields() {
+        assertEquals(EventFingerprint.of("a", "b", "c", null), EventFingerprint.of("a", "b", "c", ""));
+        assertNotEquals(EventFingerprint.of("ab", "c", "d", "e"), EventFingerprint.of("a", "bc", "d", "e"));
+        assertNotEquals(EventFingerprint.of("2024-03-10", "10:00", "Delivered", "BRUSSEL X"),
+                EventFingerprint.of("2024-03-10", "10:00", "Delivered", "GENT X"));
+    }
+
+}